@@ -0,0 +1,126 @@
+package abalone.bench;
+
+import abalone.ai.Heuristic;
+import abalone.model.Board;
+import abalone.model.Move;
+import abalone.model.MoveList;
+import abalone.model.MoveUndo;
+import abalone.model.PackedMove;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the rules engine on the reference positions. Run with
+ * {@code -prof gc} to see the allocation rate of each operation.
+ *
+ * {@link #executeMove} plays on a copy of the position (a move cannot be
+ * replayed on the board it changed): subtract {@link #copy} to get the
+ * cost of the move itself, or look at {@link #makeUnmake}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public ReferencePositions position;
+
+    private Board board;
+    private Move[] moves;
+    private int[] packedMoves;
+    private final MoveList moveList = new MoveList();
+    private final MoveUndo undo = new MoveUndo();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        List<Move> legal = board.generateLegalMoves(board.getCurrentTurn());
+        moves = legal.toArray(new Move[0]);
+        board.generateLegalMoves(board.getCurrentTurn(), moveList);
+        packedMoves = new int[moveList.size()];
+        for (int i = 0; i < packedMoves.length; i++) {
+            packedMoves[i] = moveList.get(i);
+        }
+    }
+
+    /*
+     * Cycles through the legal moves so no single move is measured.
+     */
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == moves.length ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public List<Move> generateLegalMoves() {
+        return board.generateLegalMoves(board.getCurrentTurn());
+    }
+
+    @Benchmark
+    public MoveList generateLegalMovesPacked() {
+        board.generateLegalMoves(board.getCurrentTurn(), moveList);
+        return moveList;
+    }
+
+    @Benchmark
+    public MoveList generateCaptures() {
+        board.generateCaptures(board.getCurrentTurn(), moveList);
+        return moveList;
+    }
+
+    @Benchmark
+    public boolean validateMove() {
+        return board.validateMove(moves[nextIndex()], board.getCurrentTurn());
+    }
+
+    @Benchmark
+    public Board executeMove() {
+        Board copy = board.copy();
+        copy.executeMove(moves[nextIndex()]);
+        return copy;
+    }
+
+    @Benchmark
+    public void makeUnmake(Blackhole bh) {
+        board.makeMove(packedMoves[nextIndex()], undo);
+        bh.consume(board.getHash());
+        board.unmakeMove(undo);
+    }
+
+    @Benchmark
+    public Board copy() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Heuristic.evaluate(board, board.getCurrentTurn());
+    }
+
+    @Benchmark
+    public int evaluateFull() {
+        return Heuristic.evaluateFull(board, board.getCurrentTurn());
+    }
+
+    @Benchmark
+    public int packMove() {
+        return PackedMove.fromMove(moves[nextIndex()]);
+    }
+}
@@ -0,0 +1,68 @@
+package abalone.bench;
+
+import abalone.model.Board;
+import abalone.model.HexCoordinate;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Fixed positions shared by the benchmarks, so results stay comparable
+ * from one run (and one optimization) to the next. They are loaded through
+ * the save format, like a game restored with SaveService.
+ */
+public enum ReferencePositions {
+    /** Standard setup, Black to move. */
+    OPENING(null, null, 0, 0, "BLACK"),
+    /** Both sides engaged in the center, one marble lost each. */
+    MIDDLEGAME(
+            "(-1,-1) (-1,0) (-1,1) (-1,2) (-1,3) (-2,0) (-2,1) (-2,2) (0,0) (0,1) (0,2) (1,-2) (1,3)",
+            "(-1,-2) (-2,-1) (-2,-2) (0,-2) (0,-3) (1,-3) (1,0) (1,1) (1,2) (2,-1) (2,0) (3,-2) (3,-3)",
+            1, 1, "BLACK"),
+    /** White two ejections from losing, marbles on the edge. */
+    ENDGAME(
+            "(-1,0) (-1,2) (-1,3) (-2,3) (0,-1) (0,-2) (0,-3) (1,-1) (1,-2) (1,-3) (2,-2) (3,-3)",
+            "(-1,-2) (0,-4) (0,1) (1,1) (2,-1) (2,-3) (2,1) (3,-2) (4,-3) (4,-4)",
+            2, 4, "WHITE");
+
+    private final String black;
+    private final String white;
+    private final int blackLost;
+    private final int whiteLost;
+    private final String toMove;
+
+    ReferencePositions(String black, String white, int blackLost, int whiteLost, String toMove) {
+        this.black = black;
+        this.white = white;
+        this.blackLost = blackLost;
+        this.whiteLost = whiteLost;
+        this.toMove = toMove;
+    }
+
+    /*
+     * A fresh board in this position.
+     */
+    public Board create() {
+        Board board = new Board();
+        if (black == null) return board;
+        try {
+            JSONObject json = board.toJSON();
+            JSONObject pieces = new JSONObject();
+            addPieces(pieces, black, "BLACK");
+            addPieces(pieces, white, "WHITE");
+            json.put("pieces", pieces);
+            json.put("blackLost", blackLost);
+            json.put("whiteLost", whiteLost);
+            json.put("currentTurn", toMove);
+            board.fromJSON(json);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return board;
+    }
+
+    private static void addPieces(JSONObject pieces, String cells, String color) throws JSONException {
+        for (String cell : cells.split(" ")) {
+            pieces.put(new HexCoordinate(cell).toString(), new JSONObject().put("color", color));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package abalone.bench;
+
+import abalone.ai.AIPlayer;
+import abalone.ai.Difficulty;
+import abalone.model.Board;
+import abalone.model.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full AI decision ({@code chooseMove}) per difficulty and reference
+ * position, with an empty transposition table every time, as for the first
+ * move after loading a game. Time-limited levels mostly
+ * measure their budget; compare allocation ({@code -prof gc}) and the depth
+ * reached rather than the raw time.
+ *
+ * Run from a directory without an opening book, or the opening position is
+ * answered from the book.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public Difficulty difficulty;
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public ReferencePositions position;
+
+    private Board board;
+    private AIPlayer player;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        player = new AIPlayer("bench", board.getCurrentTurn(), difficulty);
+    }
+
+    @Setup(Level.Invocation)
+    public void newGame() {
+        // A search dwarfs the cost of clearing the table: per-invocation setup is fine here.
+        player.newGame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        player.close();
+    }
+
+    @Benchmark
+    public Move chooseMove() {
+        return player.chooseMove(board);
+    }
+}
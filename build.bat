@@ -39,7 +39,7 @@ exit /b 0
 :compile
 echo Compiling Java source files...
 if not exist "%BINDIR%" mkdir "%BINDIR%"
-%JAVAC% -cp "%SRCDIR%\abalone\model\java-json.jar" -d "%BINDIR%" -sourcepath "%SRCDIR%" "%SRCDIR%\abalone\*.java" "%SRCDIR%\abalone\controller\*.java" "%SRCDIR%\abalone\model\*.java" "%SRCDIR%\abalone\view\*.java"
+%JAVAC% -cp "%SRCDIR%\abalone\model\java-json.jar" -d "%BINDIR%" -sourcepath "%SRCDIR%" "%SRCDIR%\abalone\*.java" "%SRCDIR%\abalone\ai\*.java" "%SRCDIR%\abalone\controller\*.java" "%SRCDIR%\abalone\model\*.java" "%SRCDIR%\abalone\tools\*.java" "%SRCDIR%\abalone\view\*.java"
 if !errorlevel! equ 0 (
     echo Compilation successful.
 ) else (
@@ -0,0 +1,54 @@
+package abalone.ai;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one AI decision ({@link AIPlayer#chooseMove}),
+ * from the call to the chosen move. Its duration is the wait seen by the
+ * game; the search statistics tell what the time went into.
+ */
+@Name("abalone.AIMove")
+@Label("AI Move")
+@Category({"Abalone", "AI"})
+@Description("One AI decision, from the call to chooseMove to the chosen move")
+final class AIMoveEvent extends Event {
+    @Label("Player")
+    String player;
+
+    @Label("Color")
+    String color;
+
+    @Label("Difficulty")
+    String difficulty;
+
+    @Label("Move")
+    String move;
+
+    @Label("Depth Reached")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Leaf Evaluations")
+    long leafEvaluations;
+
+    @Label("Search Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long searchTime;
+
+    @Label("From Book")
+    boolean fromBook;
+
+    @Label("Ponder Hit")
+    @Description("Continued the search started on the opponent's time")
+    boolean ponderHit;
+
+    @Label("Position Hash")
+    long positionHash;
+}
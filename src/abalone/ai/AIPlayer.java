@@ -2,24 +2,294 @@ package abalone.ai;
 
 import abalone.model.Board;
 import abalone.model.Color;
+import abalone.model.Direction;
 import abalone.model.Move;
+import abalone.model.MoveList;
+import abalone.model.MoveUndo;
+import abalone.model.PackedMove;
 import abalone.model.Player;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Computer player. Besides {@link #chooseMove}, it can ponder: once its move
+ * is played, {@link #startPondering} guesses the opponent's reply (the best
+ * move stored in the transposition table) and searches the resulting
+ * position in the background. If the opponent does play it, the next
+ * {@link #chooseMove} picks up that search instead of starting from scratch.
+ *
+ * The statistics of its last search and of all its searches since
+ * {@link #newGame} are kept for monitoring.
+ */
 public class AIPlayer extends Player {
+    public static final int DEFAULT_TABLE_MB = 16;
+
     private final Difficulty difficulty;
+    private final int threads;
+    private final TranspositionTable table;
     private final AlphaBetaStrategy strategy;
 
+    // Background search on the opponent's time, null when not pondering.
+    private ExecutorService ponderExecutor;
+    private final ForkJoinPool pool;
+    private boolean closed;
+    private Future<SearchResult> ponderResult;
+    private SearchControl ponderControl;
+    private long ponderHash;
+    private int ponderMove = PackedMove.NONE;
+    private int ponderHits;
+    private int ponderMisses;
+
+    private volatile SearchStats lastStats;
+    private SearchStats totalStats = new SearchStats();
+
     public AIPlayer(String name, Color color, Difficulty difficulty) {
+        this(name, color, difficulty, DEFAULT_TABLE_MB, difficulty.getThreads());
+    }
+
+    /**
+     * @param tableMegabytes memory budget of the transposition table, kept for
+     *                       the whole game
+     * @param threads        search threads; above 1 the root moves are split
+     *                       over a dedicated {@link ForkJoinPool}
+     */
+    public AIPlayer(String name, Color color, Difficulty difficulty, int tableMegabytes, int threads) {
         super(name, color);
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is required.");
+        }
         this.difficulty = difficulty;
-        this.strategy = new AlphaBetaStrategy(difficulty.getDepth());
+        this.threads = threads;
+        this.table = new TranspositionTable(tableMegabytes);
+        this.strategy = new AlphaBetaStrategy(difficulty.getMaxDepth(), difficulty.getTimeLimitMillis(), table);
+        strategy.setNullMovePruning(difficulty.usesNullMovePruning());
+        strategy.setLateMoveReductions(difficulty.usesLateMoveReductions());
+        strategy.setOpeningBook(OpeningBook.openDefault());
+        if (threads > 1) {
+            // Pool threads are daemons: an abandoned AI never keeps the JVM alive.
+            pool = new ForkJoinPool(threads);
+            strategy.setPool(pool);
+        } else {
+            pool = null;
+        }
     }
 
     public Difficulty getDifficulty() {
         return difficulty;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /*
+     * Forget everything learned during the previous game.
+     */
+    public void newGame() {
+        stopPondering();
+        table.clear();
+        ponderHits = 0;
+        ponderMisses = 0;
+        synchronized (this) {
+            lastStats = null;
+            totalStats = new SearchStats();
+        }
+    }
+
     public Move chooseMove(Board board) {
-        return strategy.chooseMove(board, getColor());
+        SearchResult result = search(board);
+        return result == null ? null : result.getMove();
+    }
+
+    /*
+     * Same as chooseMove, with the statistics of the search. Null if the
+     * search was interrupted while picking up the pondering one.
+     */
+    public SearchResult search(Board board) {
+        AIMoveEvent event = new AIMoveEvent();
+        event.begin();
+        Future<SearchResult> pondered = takePonderResult(board);
+        SearchResult result = pondered != null ? waitFor(pondered) : strategy.search(board, getColor());
+        if (result != null) {
+            lastStats = result.getStats();
+            synchronized (this) {
+                totalStats.add(result.getStats());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.player = getName();
+            event.color = getColor().name();
+            event.difficulty = difficulty.name();
+            event.positionHash = board.getHash();
+            event.ponderHit = pondered != null;
+            if (result != null) {
+                SearchStats stats = result.getStats();
+                Move move = result.getMove();
+                event.move = move == null ? null : move.getMarbles() + " " + Direction.fromHex(move.getDirection());
+                event.depth = stats.getDepthReached();
+                event.nodes = stats.getNodes();
+                event.leafEvaluations = stats.getLeafEvaluations();
+                event.searchTime = stats.getElapsedNanos();
+                event.fromBook = stats.getBookMoves() > 0;
+            }
+            event.commit();
+        }
+        return result;
+    }
+
+    /*
+     * Statistics of the last search, null before the first one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    /*
+     * Sum of the statistics of every search since the last newGame().
+     */
+    public synchronized SearchStats getTotalStats() {
+        SearchStats copy = new SearchStats();
+        copy.add(totalStats);
+        return copy;
+    }
+
+    /**
+     * Stops whatever this player is computing: the move search in progress
+     * (its {@link #chooseMove} returns the best move found so far) and any
+     * pondering. Safe to call from any thread.
+     */
+    public void cancelSearch() {
+        strategy.cancel();
+        stopPondering();
+    }
+
+    /**
+     * Stops searching and pondering and releases the search threads. The
+     * player cannot search any more; call it when its game is left.
+     */
+    public void close() {
+        cancelSearch();
+        synchronized (this) {
+            closed = true;
+            if (ponderExecutor != null) {
+                ponderExecutor.shutdownNow();
+                ponderExecutor = null;
+            }
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts searching, in the background, the position reached if the
+     * opponent (to move on 'board') plays the reply we expect. Returns false
+     * when no reply can be predicted.
+     */
+    public synchronized boolean startPondering(Board board) {
+        stopPondering();
+        Color opponent = getColor().opposite();
+        if (closed || board.getCurrentTurn() != opponent) return false;
+        int reply = predictReply(board, opponent);
+        if (reply == PackedMove.NONE) return false;
+
+        Board position = board.copy();
+        position.makeMove(reply, new MoveUndo());
+        if (ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, getName() + "-ponder");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        SearchControl control = strategy.newControl(true);
+        ponderControl = control;
+        ponderHash = position.getHash();
+        ponderMove = reply;
+        ponderResult = ponderExecutor.submit(() -> strategy.search(position, getColor(), control));
+        return true;
+    }
+
+    /*
+     * Abandons the background search, if any, and waits for it to wind down.
+     */
+    public synchronized void stopPondering() {
+        if (ponderResult == null) return;
+        ponderControl.stop();
+        waitFor(ponderResult);
+        ponderResult = null;
+        ponderControl = null;
+    }
+
+    public synchronized boolean isPondering() {
+        return ponderResult != null;
+    }
+
+    /*
+     * Opponent move the current pondering search expects, null if not pondering.
+     */
+    public synchronized Move getPonderMove() {
+        return ponderResult == null ? null : PackedMove.toMove(ponderMove);
+    }
+
+    public synchronized int getPonderHits() {
+        return ponderHits;
+    }
+
+    public synchronized int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /*
+     * The pondering search if it was on this very position (a ponder hit),
+     * now running against the clock. Otherwise it is stopped and null is
+     * returned.
+     */
+    private synchronized Future<SearchResult> takePonderResult(Board board) {
+        if (ponderResult == null) return null;
+        if (board.getHash() == ponderHash && board.getCurrentTurn() == getColor()) {
+            Future<SearchResult> result = ponderResult;
+            ponderControl.ponderHit();
+            ponderResult = null;
+            ponderControl = null;
+            ponderHits++;
+            return result;
+        }
+        ponderMisses++;
+        stopPondering();
+        return null;
+    }
+
+    /*
+     * Best reply of 'opponent' found by our last search, if still in the table.
+     */
+    private int predictReply(Board board, Color opponent) {
+        long entry = table.probe(board.getHash());
+        if (entry == TranspositionTable.MISS || TranspositionTable.move(entry) == PackedMove.NONE)
+            return PackedMove.NONE;
+        // Keys can collide: only trust a move that is legal here.
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(opponent, moves);
+        int i = moves.indexOf(TranspositionTable.move(entry));
+        return i < 0 ? PackedMove.NONE : moves.get(i);
+    }
+
+    private static SearchResult waitFor(Future<SearchResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("AI search failed.", e.getCause());
+        }
     }
 }
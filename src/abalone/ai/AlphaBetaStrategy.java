@@ -3,90 +3,378 @@ package abalone.ai;
 import abalone.model.Board;
 import abalone.model.Color;
 import abalone.model.Move;
+import abalone.model.MoveList;
+import abalone.model.PackedMove;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Negamax alpha-beta search: scores are always from the point of view of the
+ * side to move, which lets transposition table entries be shared by both
+ * sides.
+ *
+ * The search deepens iteratively (1, 2, 3...) until the time budget is spent
+ * or the maximum depth is reached, and plays the best move of the last
+ * completed iteration. Each iteration starts with the previous best move, and
+ * fills the transposition table that orders the next one.
+ *
+ * With a {@link ForkJoinPool} the root is split "Young Brothers Wait" style:
+ * the first (expected best) move is searched alone to get a bound, then the
+ * remaining moves are searched in parallel, each thread on its own board and
+ * {@link SearchWorker}, all reading the best root score found so far as
+ * their alpha. The transposition table is shared.
+ *
+ * Positions found in the {@link OpeningBook}, if one is set, are answered
+ * from it without searching.
+ *
+ * {@link AIPlayer} can also run it on the opponent's time ("pondering") on
+ * the position it expects, and turn that search into the real one if the
+ * guess was right.
+ *
+ * The {@link SearchVariant} selects plain alpha-beta or principal variation
+ * search (the default), which also narrows each root iteration to an
+ * aspiration window around the previous score and widens it on failure.
+ *
+ * {@link #search} also reports what each decision cost ({@link SearchStats}).
+ */
 public class AlphaBetaStrategy {
-    private final int depth;
+    private static final int INFINITY = SearchWorker.INFINITY;
+    // Initial half-width of the aspiration window, a fraction of one marble.
+    private static final int ASPIRATION_WINDOW = 100;
+    // Shallow iterations are cheap and their scores swing: search them fully.
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final TranspositionTable table;
     private final Random random = new Random();
+    private final SearchWorker mainWorker;
+    // Workers of the pool threads, created on first use and kept between searches.
+    private final ThreadLocal<SearchWorker> poolWorkers;
+    private ForkJoinPool pool;
+    private SearchVariant variant = SearchVariant.PVS;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private OpeningBook openingBook;
+    // Control of the search in progress, null when idle.
+    private volatile SearchControl current;
 
+    /*
+     * Fixed-depth search without time limit nor transposition table.
+     */
     public AlphaBetaStrategy(int depth) {
-        this.depth = depth;
+        this(depth, 0, null);
+    }
+
+    /**
+     * @param maxDepth        deepest iteration, or {@link Difficulty#NO_DEPTH_LIMIT}
+     * @param timeLimitMillis budget per move, 0 for none (then maxDepth is required)
+     * @param table           shared transposition table, may be null
+     */
+    public AlphaBetaStrategy(int maxDepth, long timeLimitMillis, TranspositionTable table) {
+        if (maxDepth == Difficulty.NO_DEPTH_LIMIT && timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("Search needs a depth limit or a time limit.");
+        }
+        int plyLimit = SearchWorker.MAX_PLY - 1;
+        this.maxDepth = maxDepth == Difficulty.NO_DEPTH_LIMIT ? plyLimit : Math.min(maxDepth, plyLimit);
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = table;
+        this.mainWorker = new SearchWorker(table);
+        this.poolWorkers = ThreadLocal.withInitial(() -> new SearchWorker(table));
+    }
+
+    /*
+     * Pool used to search root moves in parallel, null (default) to search on
+     * the calling thread only.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public SearchVariant getVariant() {
+        return variant;
+    }
+
+    public void setVariant(SearchVariant variant) {
+        this.variant = variant;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /*
+     * Book consulted before every search, null (default) for none.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
     }
 
     public Move chooseMove(Board board, Color aiColor) {
-        List<Move> moves = board.generateLegalMoves(aiColor);
-        if (moves.isEmpty()) return null;
-        Collections.shuffle(moves, random); // randomize among equal-scored moves
-
-        Move best = moves.get(0);
-        double bestVal = Double.NEGATIVE_INFINITY;
-        double alpha = Double.NEGATIVE_INFINITY;
-        double beta = Double.POSITIVE_INFINITY;
-
-        for (Move m : moves) {
-            Board next = board.copy();
-            next.executeMove(m);
-            next.setCurrentTurn(aiColor.opposite());
-            double v = minimax(next, depth - 1, alpha, beta, false, aiColor);
-            if (v > bestVal) {
-                bestVal = v;
-                best = m;
+        return search(board, aiColor).getMove();
+    }
+
+    /*
+     * Same as chooseMove, with the statistics of the search.
+     */
+    public SearchResult search(Board board, Color aiColor) {
+        return search(board, aiColor, newControl(false));
+    }
+
+    /*
+     * Control for one search with this strategy's time budget, starting now.
+     */
+    SearchControl newControl(boolean pondering) {
+        return new SearchControl(System.nanoTime(), timeLimitMillis * 1_000_000L, pondering);
+    }
+
+    /*
+     * Search driven by an outside control, which can stop it or (when
+     * pondering) decide when its clock starts.
+     */
+    SearchResult search(Board board, Color aiColor, SearchControl control) {
+        long start = System.nanoTime();
+        SearchStats stats = control.getStats();
+        // Published first, so a cancel() from now on is never lost.
+        current = control;
+        try {
+            MoveList moves = new MoveList();
+            board.generateLegalMoves(aiColor, moves);
+            if (moves.isEmpty()) {
+                stats.finish(System.nanoTime() - start, false);
+                return new SearchResult(null, stats);
             }
-            if (bestVal > alpha) alpha = bestVal;
+            moves.shuffle(random); // randomize among equal-scored moves
+
+            // Work on a private copy: the caller's board stays untouched (and can be
+            // painted by the GUI) while this one is mutated by make/unmake.
+            Board root = board.copy();
+            root.setCurrentTurn(aiColor);
+
+            if (openingBook != null) {
+                int bookMove = openingBook.probe(root, moves, random);
+                if (bookMove != PackedMove.NONE) {
+                    stats.finish(System.nanoTime() - start, true);
+                    return new SearchResult(PackedMove.toMove(bookMove), stats);
+                }
+            }
+
+            if (table != null) {
+                table.newSearch();
+            }
+            prepareWorker(mainWorker, root, control);
+
+            int best = moves.get(0);
+            int score = 0;
+            try {
+                for (int depth = 1; depth <= maxDepth; depth++) {
+                    // Depth 1 always completes so there is a move to play (unless
+                    // cancelled); deeper iterations can be cut short by the clock.
+                    control.setTimed(depth > 1);
+                    long iterationStart = System.nanoTime();
+                    RootResult iteration = searchIteration(root, moves, depth, best, score, control);
+                    if (control.isStopped()) {
+                        // Cut short: a move that already beat the previous best at
+                        // this depth is still worth playing.
+                        if (iteration.improved) best = iteration.move;
+                        break;
+                    }
+                    best = iteration.move;
+                    score = iteration.score;
+                    stats.addIteration(depth, System.nanoTime() - iterationStart);
+
+                    if (!control.canDeepen()) break;
+                }
+            } finally {
+                mainWorker.flushStatistics();
+            }
+            stats.finish(System.nanoTime() - start, false);
+            return new SearchResult(PackedMove.toMove(best), stats);
+        } finally {
+            if (current == control) {
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Stops the search in progress, if any, from any thread. The search
+     * notices it at its next node and returns the best move found so far.
+     * Interrupting the searching thread has the same effect, also while
+     * the root moves are split over the pool.
+     *
+     * Only a search that has already started is affected: a cancel is not
+     * remembered for the next one.
+     */
+    public void cancel() {
+        SearchControl control = current;
+        if (control != null) {
+            control.stop();
         }
-        return best;
     }
 
-    private double minimax(Board board, int depth, double alpha, double beta,
-                           boolean maximizing, Color aiColor) {
-        if (depth == 0 || board.getBlackLost() >= 6 || board.getWhiteLost() >= 6) {
-            return Heuristic.evaluate(board, aiColor);
+    /*
+     * One iteration at the given depth. With PVS the root window starts around
+     * the previous score and is widened on the failing side until the result
+     * falls inside it.
+     */
+    private RootResult searchIteration(Board root, MoveList moves, int depth, int previousBest,
+                                       int previousScore, SearchControl control) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int delta = ASPIRATION_WINDOW;
+        if (variant == SearchVariant.PVS && depth >= ASPIRATION_MIN_DEPTH) {
+            alpha = Math.max(previousScore - delta, -INFINITY);
+            beta = Math.min(previousScore + delta, INFINITY);
         }
+        while (true) {
+            RootResult result = searchRoot(root, moves, depth, previousBest, alpha, beta, control);
+            if (control.isStopped()) return result;
+            if (result.score <= alpha) {
+                alpha = Math.max(result.score - delta, -INFINITY);
+            } else if (result.score >= beta) {
+                beta = Math.min(result.score + delta, INFINITY);
+                previousBest = result.move;
+            } else {
+                return result;
+            }
+            delta *= 4;
+        }
+    }
 
-        Color toPlay = board.getCurrentTurn();
-        List<Move> moves = board.generateLegalMoves(toPlay);
-        if (moves.isEmpty()) {
-            return Heuristic.evaluate(board, aiColor);
+    /*
+     * One pass over the root moves with the window (alpha, beta), previous best first.
+     */
+    private RootResult searchRoot(Board root, MoveList moves, int depth, int previousBest,
+                                  int alpha, int beta, SearchControl control) {
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, moves.get(i) == previousBest ? 1 : 0);
         }
+        moves.sortByScore();
 
-        if (maximizing) {
-            double best = Double.NEGATIVE_INFINITY;
-            for (Move m : orderedMoves(moves)) {
-                Board next = board.copy();
-                next.executeMove(m);
-                next.setCurrentTurn(toPlay.opposite());
-                double v = minimax(next, depth - 1, alpha, beta, false, aiColor);
-                if (v > best) best = v;
-                if (best > alpha) alpha = best;
-                if (alpha >= beta) break;
+        // Eldest brother: searched alone with the whole window.
+        RootResult result = new RootResult(moves.get(0),
+                mainWorker.searchRootMove(moves.get(0), depth, alpha, beta), alpha);
+        if (control.isStopped() || result.score >= beta) return result;
+
+        if (pool == null || moves.size() == 1) {
+            for (int i = 1; i < moves.size(); i++) {
+                int m = moves.get(i);
+                int v = mainWorker.searchRootSibling(m, depth, Math.max(alpha, result.score), beta);
+                if (control.isStopped()) return result;
+                result.offer(m, v);
+                if (result.score >= beta) break;
             }
-            return best;
         } else {
-            double best = Double.POSITIVE_INFINITY;
-            for (Move m : orderedMoves(moves)) {
-                Board next = board.copy();
-                next.executeMove(m);
-                next.setCurrentTurn(toPlay.opposite());
-                double v = minimax(next, depth - 1, alpha, beta, true, aiColor);
-                if (v < best) best = v;
-                if (best < beta) beta = best;
-                if (alpha >= beta) break;
+            List<Callable<Void>> tasks = new ArrayList<>(moves.size() - 1);
+            for (int i = 1; i < moves.size(); i++) {
+                final int m = moves.get(i);
+                tasks.add(() -> {
+                    SearchWorker worker = poolWorkers.get();
+                    prepareWorker(worker, root, control);
+                    if (result.score >= beta) return null;
+                    int v = worker.searchRootSibling(m, depth, Math.max(alpha, result.score), beta);
+                    worker.flushStatistics();
+                    if (!control.isStopped()) {
+                        result.offer(m, v);
+                    }
+                    return null;
+                });
+            }
+            List<ForkJoinTask<Void>> running = new ArrayList<>(tasks.size());
+            for (Callable<Void> task : tasks) {
+                running.add(pool.submit(task));
             }
-            return best;
+            awaitAll(running, control);
+            if (control.isStopped()) return result;
         }
+
+        if (table != null) {
+            int bound = result.score <= alpha ? TranspositionTable.UPPER
+                    : result.score >= beta ? TranspositionTable.LOWER
+                    : TranspositionTable.EXACT;
+            table.store(root.getHash(), depth, bound, result.score, result.move);
+        }
+        return result;
     }
 
-    /**
-     * Try larger groups first - they tend to lead to pushes/captures, which
-     * improves alpha-beta pruning by surfacing strong moves early.
+    /*
+     * Waits for the root tasks. An interrupt of the waiting thread stops the
+     * search (pool threads do not see it) and is kept for the caller.
+     */
+    private static void awaitAll(List<ForkJoinTask<Void>> tasks, SearchControl control) {
+        boolean interrupted = false;
+        for (ForkJoinTask<Void> task : tasks) {
+            try {
+                if (interrupted) {
+                    task.quietlyJoin(); // stopped: finishes within a few nodes
+                } else {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                control.stop();
+                task.quietlyJoin();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("AI search failed.", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void prepareWorker(SearchWorker worker, Board root, SearchControl control) {
+        worker.prepare(root, control);
+        worker.configure(variant, nullMovePruning, lateMoveReductions);
+    }
+
+    /*
+     * Best root move so far, read by every root task as its alpha.
      */
-    private List<Move> orderedMoves(List<Move> moves) {
-        List<Move> ordered = new ArrayList<>(moves);
-        ordered.sort((a, b) -> Integer.compare(b.getMarbles().size(), a.getMarbles().size()));
-        return ordered;
+    private static final class RootResult {
+        private final int alpha;
+        volatile int move;
+        volatile int score;
+        // A later move proved better than the first one (the previous best).
+        volatile boolean improved;
+
+        RootResult(int move, int score, int alpha) {
+            this.move = move;
+            this.score = score;
+            this.alpha = alpha;
+        }
+
+        synchronized void offer(int move, int score) {
+            // Searched with alpha = a previous best, so a higher score is exact
+            // (or a lower bound at or above beta, which ends the pass).
+            if (score > this.score) {
+                this.score = score;
+                this.move = move;
+                if (score > alpha) improved = true;
+            }
+        }
     }
 }
@@ -1,20 +1,67 @@
 package abalone.ai;
 
+/**
+ * AI levels. The search deepens iteratively until the per-move time budget
+ * is spent; lower levels also cap the depth to keep them beatable, and only
+ * the highest one searches on every core and prunes selectively (null move,
+ * late-move reductions).
+ */
 public enum Difficulty {
-    EASY("Facile", 1),
-    MEDIUM("Moyen", 2),
-    HARD("Difficile", 3);
+    EASY("Facile", 250, 1, 1, false, false),
+    MEDIUM("Moyen", 750, 2, 1, false, false),
+    HARD("Difficile", 2000, Difficulty.NO_DEPTH_LIMIT, Difficulty.ALL_CORES, true, true);
+
+    public static final int NO_DEPTH_LIMIT = 0;
+    public static final int ALL_CORES = 0;
 
     private final String label;
-    private final int depth;
+    private final long timeLimitMillis;
+    private final int maxDepth;
+    private final int threads;
+    private final boolean nullMovePruning;
+    private final boolean lateMoveReductions;
 
-    Difficulty(String label, int depth) {
+    Difficulty(String label, long timeLimitMillis, int maxDepth, int threads,
+               boolean nullMovePruning, boolean lateMoveReductions) {
         this.label = label;
-        this.depth = depth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxDepth = maxDepth;
+        this.threads = threads;
+        this.nullMovePruning = nullMovePruning;
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /*
+     * Wall-clock budget for one move, in milliseconds.
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /*
+     * Deepest iteration allowed, or NO_DEPTH_LIMIT to deepen until time runs out.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean hasMaxDepth() {
+        return maxDepth != NO_DEPTH_LIMIT;
+    }
+
+    /*
+     * Number of search threads (ALL_CORES resolved to the available processors).
+     */
+    public int getThreads() {
+        return threads == ALL_CORES ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    public boolean usesNullMovePruning() {
+        return nullMovePruning;
     }
 
-    public int getDepth() {
-        return depth;
+    public boolean usesLateMoveReductions() {
+        return lateMoveReductions;
     }
 
     public String getLabel() {
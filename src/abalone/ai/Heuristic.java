@@ -1,22 +1,23 @@
 package abalone.ai;
 
 import abalone.model.Board;
+import abalone.model.BoardGeometry;
 import abalone.model.Color;
-import abalone.model.HexCoordinate;
-import abalone.model.Piece;
-
-import java.util.Map;
 
 public final class Heuristic {
     // Win = 6 ejections. Make captures dwarf positional terms.
-    private static final double EJECTION_WEIGHT = 1000.0;
-    private static final double CENTER_WEIGHT = 4.0;
-    private static final double COHESION_WEIGHT = 2.0;
-    private static final double WIN_SCORE = 1_000_000.0;
+    private static final int EJECTION_WEIGHT = 1000;
+    private static final int CENTER_WEIGHT = 4;
+    private static final int COHESION_WEIGHT = 2;
+    public static final int WIN_SCORE = 1_000_000;
 
     private Heuristic() {}
 
-    public static double evaluate(Board board, Color me) {
+    /**
+     * Score of the position for 'me'. O(1): the center and cohesion terms are
+     * running sums maintained by the board as marbles move.
+     */
+    public static int evaluate(Board board, Color me) {
         Color opp = me.opposite();
         int myLost = (me == Color.BLACK) ? board.getBlackLost() : board.getWhiteLost();
         int oppLost = (me == Color.BLACK) ? board.getWhiteLost() : board.getBlackLost();
@@ -24,34 +25,45 @@ public final class Heuristic {
         if (oppLost >= 6) return WIN_SCORE;
         if (myLost >= 6) return -WIN_SCORE;
 
-        double score = EJECTION_WEIGHT * (oppLost - myLost);
-
-        Map<HexCoordinate, Piece> pieces = board.getPieces();
-        for (Map.Entry<HexCoordinate, Piece> e : pieces.entrySet()) {
-            HexCoordinate c = e.getKey();
-            Color color = e.getValue().getColor();
-            int centerProximity = Board.RADIUS - distanceFromCenter(c);
-            int cohesion = countFriendlyNeighbors(pieces, c, color);
-
-            double pieceScore = CENTER_WEIGHT * centerProximity + COHESION_WEIGHT * cohesion;
-            if (color == me) {
-                score += pieceScore;
-            } else {
-                score -= pieceScore;
-            }
-        }
+        return EJECTION_WEIGHT * (oppLost - myLost)
+                + CENTER_WEIGHT * (board.getCenterSum(me) - board.getCenterSum(opp))
+                + COHESION_WEIGHT * (board.getCohesionSum(me) - board.getCohesionSum(opp));
+    }
+
+    /**
+     * Reference implementation of {@link #evaluate}: scans every marble and
+     * its neighbors. Slow, kept to verify the incremental sums.
+     */
+    public static int evaluateFull(Board board, Color me) {
+        Color opp = me.opposite();
+        int myLost = (me == Color.BLACK) ? board.getBlackLost() : board.getWhiteLost();
+        int oppLost = (me == Color.BLACK) ? board.getWhiteLost() : board.getBlackLost();
+
+        if (oppLost >= 6) return WIN_SCORE;
+        if (myLost >= 6) return -WIN_SCORE;
+
+        int score = EJECTION_WEIGHT * (oppLost - myLost);
+        score += scoreMarbles(board.getBits(me));
+        score -= scoreMarbles(board.getBits(opp));
         return score;
     }
 
-    private static int distanceFromCenter(HexCoordinate c) {
-        return (Math.abs(c.q()) + Math.abs(c.r()) + Math.abs(c.q() + c.r())) / 2;
+    private static int scoreMarbles(long bits) {
+        int score = 0;
+        for (long rest = bits; rest != 0; rest &= rest - 1) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            int centerProximity = Board.RADIUS - BoardGeometry.distanceFromCenter(cell);
+            int cohesion = countFriendlyNeighbors(bits, cell);
+            score += CENTER_WEIGHT * centerProximity + COHESION_WEIGHT * cohesion;
+        }
+        return score;
     }
 
-    private static int countFriendlyNeighbors(Map<HexCoordinate, Piece> pieces, HexCoordinate c, Color color) {
+    private static int countFriendlyNeighbors(long bits, int cell) {
         int count = 0;
-        for (int i = 0; i < 6; i++) {
-            Piece n = pieces.get(c.neighbor(i));
-            if (n != null && n.getColor() == color) count++;
+        for (int d = 0; d < BoardGeometry.DIRECTION_COUNT; d++) {
+            int n = BoardGeometry.neighbor(cell, d);
+            if (n >= 0 && (bits & (1L << n)) != 0) count++;
         }
         return count;
     }
@@ -0,0 +1,178 @@
+package abalone.ai;
+
+import abalone.model.Board;
+import abalone.model.MoveList;
+import abalone.model.PackedMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Read-only opening book: known good moves for positions met early in the
+ * game, answered without searching. The file is mapped in memory and
+ * binary-searched in place, so an open book costs no heap beyond the
+ * mapping itself.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   header  int magic "ABOB", int version, int entry count, int reserved
+ *   entries long position hash, int packed move, int weight    (16 bytes)
+ * </pre>
+ * Entries are sorted by hash; a position with several book moves has one
+ * entry per move, next to each other. Hashes are {@link Board#getHash()}
+ * keys, so a book only matches the Zobrist seed it was built with.
+ */
+public final class OpeningBook {
+    /** Looked up in the working directory by {@link #openDefault()}. */
+    public static final String DEFAULT_FILE = "opening.book";
+
+    private static final int MAGIC = 0x41424F42;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            int size = map.getInt(8);
+            if (size < 0 || HEADER_BYTES + (long) size * ENTRY_BYTES > length) {
+                throw new IOException("Truncated opening book: " + file);
+            }
+            // The mapping stays valid once the channel is closed.
+            return new OpeningBook(map, size);
+        }
+    }
+
+    /*
+     * Book in DEFAULT_FILE, or null if there is none (or it cannot be read).
+     */
+    public static OpeningBook openDefault() {
+        Path file = Paths.get(DEFAULT_FILE);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return open(file);
+        } catch (IOException e) {
+            System.err.println("Opening book ignored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A book move for the side to move on 'board', picked at random in
+     * proportion to the weights, or {@link PackedMove#NONE} if the position
+     * is not in the book. 'legalMoves' are the moves of that position: book
+     * moves that are not among them (hash collision) are ignored.
+     */
+    public int probe(Board board, MoveList legalMoves, Random random) {
+        long hash = board.getHash();
+        int first = firstEntry(hash);
+        if (first < 0) return PackedMove.NONE;
+
+        long total = 0;
+        int i = first;
+        for (; i < size && hash(i) == hash; i++) {
+            if (legalMoves.indexOf(move(i)) >= 0) {
+                total += weight(i);
+            }
+        }
+        if (total == 0) return PackedMove.NONE;
+
+        long pick = (long) (random.nextDouble() * total);
+        for (int j = first; j < i; j++) {
+            int index = legalMoves.indexOf(move(j));
+            if (index < 0) continue;
+            pick -= weight(j);
+            if (pick < 0) return legalMoves.get(index);
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Writes a book from weighted moves per position hash. Moves with a
+     * weight of 0 or less are left out.
+     */
+    public static void write(Path file, Map<Long, Map<Integer, Integer>> positions) throws IOException {
+        List<Long> hashes = new ArrayList<>(positions.keySet());
+        hashes.sort(null);
+        int count = 0;
+        for (Map<Integer, Integer> moves : positions.values()) {
+            for (int weight : moves.values()) {
+                if (weight > 0) count++;
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(0);
+            for (long hash : hashes) {
+                for (Map.Entry<Integer, Integer> move : positions.get(hash).entrySet()) {
+                    if (move.getValue() <= 0) continue;
+                    out.writeLong(hash);
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+    }
+
+    /*
+     * Index of the first entry with this hash, -1 if none.
+     */
+    private int firstEntry(long hash) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hash(mid) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && hash(low) == hash ? low : -1;
+    }
+
+    private long hash(int entry) {
+        return entries.getLong(HEADER_BYTES + entry * ENTRY_BYTES);
+    }
+
+    private int move(int entry) {
+        return entries.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 8);
+    }
+
+    private int weight(int entry) {
+        return entries.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 12);
+    }
+}
@@ -0,0 +1,78 @@
+package abalone.ai;
+
+/**
+ * Stop signal shared by every thread of one search. The first worker to see
+ * the deadline pass (or its thread interrupted) raises the flag, the others
+ * notice it at their next node. {@link #stop()} raises it from outside.
+ *
+ * A pondering search (run on the opponent's time) gets a longer leash until
+ * {@link #ponderHit()}: it stops at {@link #PONDER_BUDGET_FACTOR} times the
+ * budget, so an opponent who takes their time does not keep the cores busy
+ * forever. From the hit on it is an ordinary timed search whose budget
+ * started when the pondering did, so the time already spent counts.
+ *
+ * It also carries the {@link SearchStats} the workers add their counters to.
+ */
+final class SearchControl {
+    // A pondering search stops at this many move budgets.
+    static final int PONDER_BUDGET_FACTOR = 4;
+
+    private final long start;
+    private final long budget;
+    private volatile boolean timed;
+    private volatile boolean pondering;
+    private volatile boolean stopped;
+    private final SearchStats stats = new SearchStats();
+
+    /*
+     * 'start' is a System.nanoTime() value, 'budget' in nanoseconds (0 = none).
+     */
+    SearchControl(long start, long budget, boolean pondering) {
+        this.start = start;
+        this.budget = budget;
+        this.pondering = pondering;
+    }
+
+    void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    void checkClock() {
+        if (Thread.currentThread().isInterrupted()) {
+            stopped = true;
+        } else if (timed && budget > 0 && System.nanoTime() - start >= limit()) {
+            stopped = true;
+        }
+    }
+
+    /*
+     * Whether another iteration is worth starting: it costs several times the
+     * previous one, so not once half of the budget is used.
+     */
+    boolean canDeepen() {
+        return budget == 0 || (System.nanoTime() - start) * 2 < limit();
+    }
+
+    private long limit() {
+        return pondering ? PONDER_BUDGET_FACTOR * budget : budget;
+    }
+
+    /*
+     * The opponent played the move we pondered on: the clock starts counting.
+     */
+    void ponderHit() {
+        pondering = false;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    SearchStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,27 @@
+package abalone.ai;
+
+import abalone.model.Move;
+
+/**
+ * Outcome of one AI decision: the move to play and what finding it cost.
+ */
+public final class SearchResult {
+    private final Move move;
+    private final SearchStats stats;
+
+    SearchResult(Move move, SearchStats stats) {
+        this.move = move;
+        this.stats = stats;
+    }
+
+    /*
+     * Move to play, null if the side to move has none.
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,142 @@
+package abalone.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a search did: nodes, leaf evaluations, cutoffs, transposition table
+ * use, depth reached and time per iteration. Every search thread counts in
+ * plain fields of its own {@link SearchWorker} and adds them here once per
+ * root move, so the counting costs next to nothing.
+ *
+ * {@link AIPlayer} also keeps one instance summing all its searches.
+ */
+public final class SearchStats {
+    private long nodes;
+    private long leafEvaluations;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private long ttProbes;
+    private long ttHits;
+    private int depthReached;
+    private long elapsedNanos;
+    private int searches;
+    private int bookMoves;
+    private final List<Long> iterationNanos = new ArrayList<>();
+
+    synchronized void addCounters(long nodes, long leafEvaluations, long betaCutoffs, long firstMoveCutoffs,
+                                  long ttProbes, long ttHits) {
+        this.nodes += nodes;
+        this.leafEvaluations += leafEvaluations;
+        this.betaCutoffs += betaCutoffs;
+        this.firstMoveCutoffs += firstMoveCutoffs;
+        this.ttProbes += ttProbes;
+        this.ttHits += ttHits;
+    }
+
+    /*
+     * An iteration of the given depth completed in 'nanos'.
+     */
+    synchronized void addIteration(int depth, long nanos) {
+        depthReached = depth;
+        iterationNanos.add(nanos);
+    }
+
+    synchronized void finish(long elapsedNanos, boolean fromBook) {
+        this.elapsedNanos = elapsedNanos;
+        this.searches = 1;
+        this.bookMoves = fromBook ? 1 : 0;
+    }
+
+    /**
+     * Adds another search's counters to this one (cumulative statistics).
+     * Depth reached becomes the deepest seen; iteration times are not kept.
+     */
+    public synchronized void add(SearchStats other) {
+        synchronized (other) {
+            nodes += other.nodes;
+            leafEvaluations += other.leafEvaluations;
+            betaCutoffs += other.betaCutoffs;
+            firstMoveCutoffs += other.firstMoveCutoffs;
+            ttProbes += other.ttProbes;
+            ttHits += other.ttHits;
+            depthReached = Math.max(depthReached, other.depthReached);
+            elapsedNanos += other.elapsedNanos;
+            searches += other.searches;
+            bookMoves += other.bookMoves;
+        }
+    }
+
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    public synchronized long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public synchronized long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    /*
+     * Share of beta cutoffs produced by the first move tried: a measure of move ordering.
+     */
+    public synchronized double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    public synchronized long getTtProbes() {
+        return ttProbes;
+    }
+
+    public synchronized long getTtHits() {
+        return ttHits;
+    }
+
+    public synchronized double getTtHitRate() {
+        return ttProbes == 0 ? 0.0 : (double) ttHits / ttProbes;
+    }
+
+    /*
+     * Depth of the last completed iteration (0 for a book move).
+     */
+    public synchronized int getDepthReached() {
+        return depthReached;
+    }
+
+    public synchronized long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public synchronized double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /*
+     * Duration of each completed iteration, depth 1 first.
+     */
+    public synchronized List<Long> getIterationNanos() {
+        return Collections.unmodifiableList(new ArrayList<>(iterationNanos));
+    }
+
+    /*
+     * Number of searches summed here (1 for a single search).
+     */
+    public synchronized int getSearches() {
+        return searches;
+    }
+
+    public synchronized int getBookMoves() {
+        return bookMoves;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("depth %d, %d nodes (%d evals) in %.1f ms, %.0f nps, cutoffs %d (%.0f%% first move),"
+                        + " TT %d/%d (%.0f%%)", depthReached, nodes, leafEvaluations, elapsedNanos / 1e6,
+                getNodesPerSecond(), betaCutoffs, 100 * getFirstMoveCutoffRate(), ttHits, ttProbes,
+                100 * getTtHitRate());
+    }
+}
@@ -0,0 +1,16 @@
+package abalone.ai;
+
+/**
+ * Search algorithms available in {@link AlphaBetaStrategy}, selectable so
+ * they can be compared on the same positions.
+ */
+public enum SearchVariant {
+    /** Every move searched with the full (alpha, beta) window. */
+    ALPHA_BETA,
+    /**
+     * Principal variation search: the first move gets the full window, the
+     * others a null window, re-searched only when they fail high. The root
+     * uses an aspiration window around the previous iteration's score.
+     */
+    PVS
+}
@@ -0,0 +1,372 @@
+package abalone.ai;
+
+import abalone.model.Board;
+import abalone.model.BoardGeometry;
+import abalone.model.Color;
+import abalone.model.MoveList;
+import abalone.model.MoveUndo;
+import abalone.model.PackedMove;
+
+/**
+ * Per-thread search state: a private board searched with make/unmake, one
+ * undo record and move list per ply, and the move ordering tables (killers,
+ * history). Only the transposition table and the {@link SearchControl} are
+ * shared with the other workers.
+ *
+ * Moves are tried in this order: transposition table move, pushes (ejections
+ * first), the two killer moves of the ply, then quiet moves by history score.
+ *
+ * Optional selectivity (see {@link Difficulty}): null-move pruning gives the
+ * opponent a free move at reduced depth and cuts the node if we still stay
+ * above beta; late-move reductions search the quiet moves ordered last one
+ * ply shallower (two when very late), and search them again at full depth
+ * if they beat alpha. Null-move pruning is kept off the principal variation,
+ * which under plain alpha-beta is the chain of first moves searched.
+ *
+ * Statistics are counted in plain fields and added to the search's
+ * {@link SearchStats} by {@link #flushStatistics}, once per root task.
+ */
+final class SearchWorker {
+    static final int INFINITY = 10 * Heuristic.WIN_SCORE;
+    static final int MAX_PLY = 64;
+    // Captures searched past the horizon, at most this many plies deep.
+    static final int QUIESCENCE_DEPTH = 4;
+    // Null move: depth reduction, and shallowest depth it is tried at.
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    // Late-move reductions: from this depth, for moves past this index.
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVE = 3;
+    private static final int LMR_DEEP_MOVE = 12;
+    // Clock is read once every (mask + 1) nodes.
+    private static final int TIME_CHECK_MASK = 1023;
+
+    // Ordering scores, highest first. History scores stay below KILLER_2.
+    private static final int TT_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int PUSH_SCORE = 2_000_000;
+    private static final int EJECTION_BONUS = 100_000;
+    private static final int KILLER_1_SCORE = 1_500_000;
+    private static final int KILLER_2_SCORE = 1_400_000;
+    private static final int HISTORY_LIMIT = 1_000_000;
+
+    private final TranspositionTable table;
+    private final MoveUndo[] undoStack = new MoveUndo[MAX_PLY];
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    // Two quiet moves per ply that recently caused a beta cutoff.
+    private final int[][] killers = new int[MAX_PLY][2];
+    // Cutoff statistics per (anchor cell, direction, group size) of quiet moves.
+    private final int[] history = new int[BoardGeometry.CELL_COUNT * BoardGeometry.DIRECTION_COUNT * 3];
+
+    private Board board;
+    private SearchControl control;
+    private boolean pvs;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private long nodes;
+    private long leafEvaluations;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private long ttProbes;
+    private long ttHits;
+
+    SearchWorker(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < MAX_PLY; i++) {
+            undoStack[i] = new MoveUndo();
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /*
+     * Starts working on a private copy of the root position.
+     */
+    void prepare(Board root, SearchControl control) {
+        this.board = root.copy();
+        if (this.control != control) {
+            // First task of a new search on this thread: killers are tied to
+            // the old plies, history is kept but aged.
+            for (int[] k : killers) {
+                k[0] = PackedMove.NONE;
+                k[1] = PackedMove.NONE;
+            }
+            ageHistory();
+        }
+        this.control = control;
+    }
+
+    void configure(SearchVariant variant, boolean nullMovePruning, boolean lateMoveReductions) {
+        this.pvs = variant == SearchVariant.PVS;
+        this.nullMovePruning = nullMovePruning;
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Score of a root move, from the root player's point of view, searched
+     * with the window (alpha, beta). Meaningless once the control is stopped.
+     */
+    int searchRootMove(int move, int depth, int alpha, int beta) {
+        return searchRootMove(move, depth, alpha, beta, true);
+    }
+
+    private int searchRootMove(int move, int depth, int alpha, int beta, boolean pvNode) {
+        MoveUndo undo = undoStack[0];
+        board.makeMove(move, undo);
+        int v = -negamax(depth - 1, 1, -beta, -alpha, pvNode, true);
+        board.unmakeMove(undo);
+        return v;
+    }
+
+    /**
+     * Root move that is not expected to beat alpha. With PVS it is first
+     * searched with a null window and only re-searched with (alpha, beta)
+     * if it fails high; otherwise this is {@link #searchRootMove}.
+     */
+    int searchRootSibling(int move, int depth, int alpha, int beta) {
+        if (!pvs) {
+            return searchRootMove(move, depth, alpha, beta, false);
+        }
+        int v = searchRootMove(move, depth, alpha, alpha + 1);
+        if (v > alpha && v < beta && !control.isStopped()) {
+            v = searchRootMove(move, depth, alpha, beta);
+        }
+        return v;
+    }
+
+    /*
+     * Adds the counters gathered since the last flush to the statistics of the
+     * current search (and of the transposition table).
+     */
+    void flushStatistics() {
+        control.getStats().addCounters(nodes, leafEvaluations, betaCutoffs, firstMoveCutoffs, ttProbes, ttHits);
+        if (table != null) {
+            table.addStatistics(ttProbes, ttHits);
+        }
+        nodes = 0;
+        leafEvaluations = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        ttProbes = 0;
+        ttHits = 0;
+    }
+
+    /*
+     * 'pvNode' is true on the principal variation: with PVS every full-window
+     * node, with plain alpha-beta only the chain of first moves (a full window
+     * there does not make a node PV). 'allowNull' is false right after a null
+     * move, so two never follow each other.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, boolean pvNode, boolean allowNull) {
+        if (depth == 0) {
+            return quiescence(QUIESCENCE_DEPTH, ply, alpha, beta); // counts the node itself
+        }
+        if ((++nodes & TIME_CHECK_MASK) == 0) {
+            control.checkClock();
+        }
+        if (control.isStopped()) return 0; // discarded by the caller
+
+        Color toPlay = board.getCurrentTurn();
+        if (board.getBlackLost() >= 6 || board.getWhiteLost() >= 6) {
+            leafEvaluations++;
+            return Heuristic.evaluate(board, toPlay);
+        }
+
+        // Transposition table: reuse a result searched at least as deep, or at
+        // least its best move for ordering.
+        long key = board.getHash();
+        int ttMove = PackedMove.NONE;
+        if (table != null) {
+            ttProbes++;
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                ttHits++;
+                ttMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT) return score;
+                    if (bound == TranspositionTable.LOWER && score >= beta) return score;
+                    if (bound == TranspositionTable.UPPER && score <= alpha) return score;
+                }
+            }
+        }
+
+        // Null move: if passing still holds beta at reduced depth, a real move
+        // would too. Skipped one ejection away from losing, where tempo is
+        // everything, and in PV nodes.
+        boolean nonPv = !pvNode || beta - alpha == 1;
+        if (nullMovePruning && allowNull && nonPv && depth >= NULL_MOVE_MIN_DEPTH
+                && lost(toPlay) < 5 && Heuristic.evaluate(board, toPlay) >= beta) {
+            board.setCurrentTurn(toPlay.opposite());
+            int v = -negamax(depth - 1 - NULL_MOVE_REDUCTION, ply + 1, -beta, -beta + 1, false, false);
+            board.setCurrentTurn(toPlay);
+            if (control.isStopped()) return 0;
+            if (v >= beta) return beta;
+        }
+
+        MoveList moves = moveLists[ply];
+        board.generateLegalMoves(toPlay, moves);
+        if (moves.isEmpty()) {
+            leafEvaluations++;
+            return Heuristic.evaluate(board, toPlay);
+        }
+        orderMoves(moves, ttMove, ply);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = moves.get(0);
+        MoveUndo undo = undoStack[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            board.makeMove(m, undo);
+            int v;
+            if (i == 0) {
+                v = -negamax(depth - 1, ply + 1, -beta, -alpha, pvNode, true);
+            } else {
+                // Late quiet moves (history-ordered, past the killers) first get
+                // a reduced null-window search; only those beating alpha go on.
+                boolean searchFull = true;
+                if (lateMoveReductions && depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVE
+                        && moves.getScore(i) < KILLER_2_SCORE) {
+                    int reduction = i >= LMR_DEEP_MOVE && depth > LMR_MIN_DEPTH ? 2 : 1;
+                    v = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, false, true);
+                    searchFull = v > alpha;
+                } else {
+                    v = alpha + 1;
+                }
+                if (searchFull && pvs) {
+                    // Prove the move is no better than alpha with a null window,
+                    // and pay for a full-window search only when that fails.
+                    v = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, false, true);
+                    if (v > alpha && v < beta) {
+                        v = -negamax(depth - 1, ply + 1, -beta, -alpha, pvNode, true);
+                    }
+                } else if (searchFull) {
+                    // Plain alpha-beta: later moves are off the principal variation.
+                    v = -negamax(depth - 1, ply + 1, -beta, -alpha, false, true);
+                }
+            }
+            board.unmakeMove(undo);
+            if (control.isStopped()) return 0;
+            if (v > best) {
+                best = v;
+                bestMove = m;
+            }
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) {
+                betaCutoffs++;
+                if (i == 0) firstMoveCutoffs++;
+                if (!PackedMove.isCapture(m)) {
+                    recordCutoff(m, depth, ply);
+                }
+                break;
+            }
+        }
+
+        if (table != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER
+                    : TranspositionTable.EXACT;
+            table.store(key, depth, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Horizon search: only pushes and ejections are played, so a leaf is never
+     * scored with a marble hanging on the edge. The side to move may also
+     * "stand pat" on the static evaluation, since it is never forced to
+     * capture.
+     */
+    private int quiescence(int depth, int ply, int alpha, int beta) {
+        if ((++nodes & TIME_CHECK_MASK) == 0) {
+            control.checkClock();
+        }
+        if (control.isStopped()) return 0;
+
+        Color toPlay = board.getCurrentTurn();
+        leafEvaluations++;
+        int standPat = Heuristic.evaluate(board, toPlay);
+        if (depth == 0 || ply >= MAX_PLY || board.getBlackLost() >= 6 || board.getWhiteLost() >= 6) {
+            return standPat;
+        }
+        if (standPat >= beta) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        MoveList moves = moveLists[ply];
+        board.generateCaptures(toPlay, moves);
+        orderMoves(moves, PackedMove.NONE, ply);
+
+        int best = standPat;
+        MoveUndo undo = undoStack[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i), undo);
+            int v = -quiescence(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove(undo);
+            if (control.isStopped()) return 0;
+            if (v > best) {
+                best = v;
+                if (best > alpha) alpha = best;
+                if (alpha >= beta) {
+                    betaCutoffs++;
+                    if (i == 0) firstMoveCutoffs++;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void orderMoves(MoveList moves, int ttMove, int ply) {
+        int killer1 = killers[ply][0];
+        int killer2 = killers[ply][1];
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            int score;
+            if (m == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (PackedMove.isCapture(m)) {
+                // Ejections first, then the strongest pushers, then fewest marbles pushed.
+                score = PUSH_SCORE + (PackedMove.kind(m) == PackedMove.EJECTION ? EJECTION_BONUS : 0)
+                        + 4 * PackedMove.length(m) - PackedMove.pushedCount(m);
+            } else if (m == killer1) {
+                score = KILLER_1_SCORE;
+            } else if (m == killer2) {
+                score = KILLER_2_SCORE;
+            } else {
+                score = history[historyIndex(m)];
+            }
+            moves.setScore(i, score);
+        }
+        moves.sortByScore();
+    }
+
+    private int lost(Color color) {
+        return color == Color.BLACK ? board.getBlackLost() : board.getWhiteLost();
+    }
+
+    private void recordCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int index = historyIndex(move);
+        history[index] += depth * depth;
+        if (history[index] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /*
+     * Halves every history score so recent cutoffs weigh more than old ones.
+     */
+    private void ageHistory() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    private static int historyIndex(int move) {
+        return (PackedMove.anchor(move) * BoardGeometry.DIRECTION_COUNT + PackedMove.direction(move)) * 3
+                + PackedMove.length(move) - 1;
+    }
+}
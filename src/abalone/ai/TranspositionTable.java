@@ -0,0 +1,166 @@
+package abalone.ai;
+
+import abalone.model.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table keyed by {@link abalone.model.Board#getHash()
+ * Zobrist hash}. Each bucket holds two entries: a depth-preferred slot, only
+ * overwritten by deeper (or stale) results, and an always-replace slot that
+ * takes everything else.
+ *
+ * An entry is two longs, a packed data word and the key XOR-ed with it:
+ * <pre>
+ *   bits 0-31  score (int)
+ *   bits 32-51 best move (packed move, all ones = none)
+ *   bits 52-58 search depth (0..127)
+ *   bits 59-60 bound type (EXACT / LOWER / UPPER)
+ *   bits 61-63 generation (search that stored it, mod 8)
+ * </pre>
+ * The table lives as long as its {@link AIPlayer}: it is reused from one
+ * move to the next and cleared on a new game.
+ *
+ * Search threads share the table without locking. Storing key ^ data lets a
+ * probe detect an entry torn by a concurrent write (the check fails and it
+ * reads as a miss), at the cost of nothing but one XOR.
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    /** Returned by {@link #probe} when the position is not in the table. */
+    public static final long MISS = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final long MOVE_MASK = 0xFFFFFL;
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 52;
+    private static final int BOUND_SHIFT = 59;
+    private static final int GENERATION_SHIFT = 61;
+    private static final int MAX_DEPTH = 0x7F;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB.");
+        }
+        // Largest power-of-two number of buckets fitting in the budget.
+        long entries = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+        int buckets = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 29));
+        this.keys = new long[buckets * 2];
+        this.data = new long[buckets * 2];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Data word stored for this key, or {@link #MISS}. Decode it with
+     * {@link #score}, {@link #move}, {@link #depth} and {@link #bound}.
+     */
+    public long probe(long key) {
+        int slot = slot(key);
+        long word = data[slot];
+        if (word != MISS && (keys[slot] ^ word) == key) {
+            return word;
+        }
+        word = data[slot + 1];
+        if (word != MISS && (keys[slot + 1] ^ word) == key) {
+            return word;
+        }
+        return MISS;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        long word = (score & 0xFFFFFFFFL)
+                | ((move & MOVE_MASK) << MOVE_SHIFT)
+                | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        int slot = slot(key);
+        long current = data[slot];
+        // Depth-preferred slot: take it if empty, same position, not shallower,
+        // or left over from an earlier search. Otherwise always-replace slot.
+        if (current == MISS || (keys[slot] ^ current) == key || depth >= depth(current)
+                || generation(current) != generation) {
+            keys[slot] = key ^ word;
+            data[slot] = word;
+        } else {
+            keys[slot + 1] = key ^ word;
+            data[slot + 1] = word;
+        }
+    }
+
+    /*
+     * Called at the start of every search so older entries can be recognized.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0x7;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, MISS);
+        generation = 0;
+        probes.reset();
+        hits.reset();
+    }
+
+    /*
+     * Probe counters are kept by each search thread and added here in bulk.
+     */
+    public void addStatistics(long probeCount, long hitCount) {
+        probes.add(probeCount);
+        hits.add(hitCount);
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0.0 : (double) hits.sum() / p;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int move(long entry) {
+        int move = (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK);
+        return move == MOVE_MASK ? PackedMove.NONE : move;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & MAX_DEPTH);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT);
+    }
+
+    private int slot(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}
@@ -4,16 +4,19 @@ import abalone.ai.AIPlayer;
 import abalone.model.Board;
 import abalone.model.Color;
 import abalone.model.Direction;
+import abalone.model.BoardGeometry;
 import abalone.model.HexCoordinate;
+import abalone.model.LegalMoveIndex;
 import abalone.model.Move;
 import abalone.model.Piece;
 import abalone.model.Player;
 
 import javax.swing.SwingWorker;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.LongConsumer;
 
 public class GuiController {
     private final Board board;
@@ -22,14 +25,29 @@ public class GuiController {
     private String message;
     private Runnable onGameEnd;
     private Runnable onUpdate;
+    private LongConsumer onCellsChanged;
     private AIPlayer aiPlayer;
     private boolean aiThinking = false;
+    private SwingWorker<Move, Void> aiWorker;
+    // Set once the game is left: late AI results are then dropped.
+    private boolean disposed = false;
+    // Legal moves of the side to move, by selection; null once a move is played.
+    private LegalMoveIndex moveIndex;
+    // State last published to the view, to report only what changed since.
+    private long shownBlack;
+    private long shownWhite;
+    private long shownSelection;
+    private long shownHints;
+    private String shownMessage;
 
     public GuiController(Board board) {
         this.board = board;
         this.currentTurn = board.getCurrentTurn();
         this.selectedMarbles = new ArrayList<>();
         this.message = "Turn: " + currentTurn;
+        this.shownBlack = board.getBits(Color.BLACK);
+        this.shownWhite = board.getBits(Color.WHITE);
+        this.shownMessage = message;
     }
 
     public Color getCurrentTurn() {
@@ -44,10 +62,22 @@ public class GuiController {
         this.onGameEnd = onGameEnd;
     }
 
+    /*
+     * Called when the status message changes, and for any change at all
+     * when no cell listener is set.
+     */
     public void setOnUpdate(Runnable onUpdate) {
         this.onUpdate = onUpdate;
     }
 
+    /*
+     * Called with the bitset of cell indices whose display changed: marbles
+     * moved or ejected, selection toggled, move hints shown or hidden.
+     */
+    public void setOnCellsChanged(LongConsumer onCellsChanged) {
+        this.onCellsChanged = onCellsChanged;
+    }
+
     public void setPlayerNames(String blackName, String whiteName) {
         board.setPlayers(new Player(blackName, Color.BLACK), new Player(whiteName, Color.WHITE));
         updateStatus();
@@ -60,11 +90,30 @@ public class GuiController {
         } else if (white instanceof AIPlayer) {
             this.aiPlayer = (AIPlayer) white;
         }
+        if (aiPlayer != null) {
+            aiPlayer.newGame();
+        }
         updateStatus();
         // If AI plays first, kick it off.
         maybeTriggerAI();
     }
 
+    /**
+     * Leaves the game (back to the title screen, another game loaded...):
+     * the AI stops searching and pondering right away instead of finishing
+     * a move nobody will see, and its threads and table are released.
+     */
+    public void dispose() {
+        disposed = true;
+        if (aiWorker != null) {
+            aiWorker.cancel(true);
+            aiWorker = null;
+        }
+        if (aiPlayer != null) {
+            aiPlayer.close();
+        }
+    }
+
     public boolean isAITurn() {
         return aiPlayer != null && aiPlayer.getColor() == currentTurn;
     }
@@ -73,33 +122,67 @@ public class GuiController {
         return new ArrayList<>(selectedMarbles);
     }
 
+    /*
+     * Selected marbles as a bitset of cell indices.
+     */
+    public long getSelectedCells() {
+        return LegalMoveIndex.selection(selectedMarbles);
+    }
+
     /**
      * Returns the set of cells the player can click to commit a legal move with
      * the current selection. Cells already occupied by the selection itself are
      * filtered out (they are not a useful click target).
      */
     public Set<HexCoordinate> getPossibleDestinations() {
-        Set<HexCoordinate> result = new HashSet<>();
-        if (selectedMarbles.isEmpty())
-            return result;
-
-        Set<HexCoordinate> selSet = new HashSet<>(selectedMarbles);
-        for (Move m : board.generateLegalMoves(currentTurn)) {
-            if (m.getMarbles().size() != selSet.size())
-                continue;
-            if (!new HashSet<>(m.getMarbles()).equals(selSet))
-                continue;
-            HexCoordinate dir = m.getDirection();
-            for (HexCoordinate s : selectedMarbles) {
-                HexCoordinate dest = s.add(dir);
-                if (!selSet.contains(dest))
-                    result.add(dest);
-            }
+        Set<HexCoordinate> result = new LinkedHashSet<>();
+        long targets = getPossibleDestinationCells();
+        while (targets != 0) {
+            result.add(BoardGeometry.coordinate(Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
         }
         return result;
     }
 
+    /*
+     * Selection and move hints as of the last update sent to the view, as
+     * bitsets of cell indices: what the view should paint, read without any
+     * computation.
+     */
+    public long getShownSelection() {
+        return shownSelection;
+    }
+
+    public long getShownHints() {
+        return shownHints;
+    }
+
+    /*
+     * Same as getPossibleDestinations, as a bitset of cell indices.
+     */
+    public long getPossibleDestinationCells() {
+        if (selectedMarbles.isEmpty())
+            return 0L;
+        return legalMoves().destinations(LegalMoveIndex.selection(selectedMarbles));
+    }
+
+    /*
+     * Index of the legal moves in the current position, built on first use
+     * after each move (or if the board changed behind our back, e.g. a load).
+     */
+    private LegalMoveIndex legalMoves() {
+        if (moveIndex == null || !moveIndex.matches(board, currentTurn)) {
+            moveIndex = new LegalMoveIndex(board, currentTurn);
+        }
+        return moveIndex;
+    }
+
     public void handleHashClick(HexCoordinate coord) {
+        handleClick(coord);
+        fireUpdate();
+    }
+
+    private void handleClick(HexCoordinate coord) {
         // Block input while it's the AI's turn.
         if (isAITurn() || aiThinking) {
             return;
@@ -164,10 +247,13 @@ public class GuiController {
                         // Board.executeMove handles it.
 
                         board.executeMove(move);
+                        moveIndex = null;
                         selectedMarbles.clear();
 
                         // Check Win Condition
                         if (checkWin()) {
+                            if (aiPlayer != null)
+                                aiPlayer.stopPondering();
                             return; // Game Over
                         }
 
@@ -221,14 +307,14 @@ public class GuiController {
     }
 
     private void maybeTriggerAI() {
-        if (!isAITurn() || aiThinking) return;
+        if (disposed || !isAITurn() || aiThinking) return;
         aiThinking = true;
         Player p = (currentTurn == Color.BLACK) ? board.getBlackPlayer() : board.getWhitePlayer();
         message = "L'IA (" + p.getName() + ") réfléchit...";
         fireUpdate();
 
         final AIPlayer ai = aiPlayer;
-        new SwingWorker<Move, Void>() {
+        aiWorker = new SwingWorker<Move, Void>() {
             @Override
             protected Move doInBackground() {
                 return ai.chooseMove(board);
@@ -237,6 +323,8 @@ public class GuiController {
             @Override
             protected void done() {
                 aiThinking = false;
+                if (disposed || isCancelled()) return;
+                aiWorker = null;
                 try {
                     Move move = get();
                     if (move == null) {
@@ -245,6 +333,7 @@ public class GuiController {
                         return;
                     }
                     board.executeMove(move);
+                    moveIndex = null;
                     if (checkWin()) {
                         fireUpdate();
                         return;
@@ -252,16 +341,36 @@ public class GuiController {
                     switchTurn();
                     updateStatus();
                     fireUpdate();
+                    // Keep thinking while the human does, on the reply we expect.
+                    ai.startPondering(board);
                 } catch (Exception ex) {
                     updateMessage("Erreur IA: " + ex.getMessage());
                     ex.printStackTrace();
                     fireUpdate();
                 }
             }
-        }.execute();
+        };
+        aiWorker.execute();
     }
 
+    /*
+     * Tells the view what changed since the last update: the cells whose
+     * marble, selection ring or hint differ, and whether the message did.
+     */
     private void fireUpdate() {
-        if (onUpdate != null) onUpdate.run();
+        long black = board.getBits(Color.BLACK);
+        long white = board.getBits(Color.WHITE);
+        long selection = getSelectedCells();
+        long hints = getPossibleDestinationCells();
+        long cells = (black ^ shownBlack) | (white ^ shownWhite) | (selection ^ shownSelection) | (hints ^ shownHints);
+        boolean update = !message.equals(shownMessage) || (cells != 0 && onCellsChanged == null);
+        shownBlack = black;
+        shownWhite = white;
+        shownSelection = selection;
+        shownHints = hints;
+        shownMessage = message;
+
+        if (cells != 0 && onCellsChanged != null) onCellsChanged.accept(cells);
+        if (update && onUpdate != null) onUpdate.run();
     }
 }
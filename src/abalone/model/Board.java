@@ -12,10 +12,26 @@ import java.util.Iterator;
 
 public class Board implements Saveable {
     public static final int RADIUS = 4;
-    private final Map<HexCoordinate, Piece> pieces = new HashMap<>();
+
+    // Pieces carry nothing but their color, so the board hands out shared instances.
+    private static final Piece BLACK_PIECE = new Piece(Color.BLACK);
+    private static final Piece WHITE_PIECE = new Piece(Color.WHITE);
+
+    // One bit per cell index and per color (61 cells fit in a single long).
+    private long blackBits;
+    private long whiteBits;
     private Player blackPlayer;
     private Player whitePlayer;
     private Color currentTurn = Color.BLACK;
+    // Zobrist key of the position, maintained incrementally (see Zobrist).
+    private long hash;
+    // Running evaluation terms per color, maintained by addCells/removeCells:
+    // sum of (RADIUS - distance to center) over the marbles, and sum over the
+    // marbles of their friendly neighbors (each adjacent pair counts twice).
+    private int blackCenter;
+    private int whiteCenter;
+    private int blackCohesion;
+    private int whiteCohesion;
 
     public Board() {
         this(new Player("Joueur Noir", Color.BLACK), new Player("Joueur Blanc", Color.WHITE));
@@ -28,8 +44,18 @@ public class Board implements Saveable {
     }
 
     private void initBoard() {
-        pieces.clear();
+        clearAll();
         createStandardSetup();
+        hash = computeHash();
+    }
+
+    private void clearAll() {
+        blackBits = 0L;
+        whiteBits = 0L;
+        blackCenter = 0;
+        whiteCenter = 0;
+        blackCohesion = 0;
+        whiteCohesion = 0;
     }
 
     // Standard setup logic separated for clarity
@@ -51,43 +77,151 @@ public class Board implements Saveable {
             place(new HexCoordinate(q, 2), Color.BLACK);
     }
 
+    /**
+     * Bitset of the cells occupied by the given color: bit i is set when cell i
+     * holds one of its marbles.
+     */
+    public long getBits(Color color) {
+        return color == Color.BLACK ? blackBits : whiteBits;
+    }
+
+    /*
+     * Color of the marble on a cell index, null if the cell is empty.
+     */
+    public Color getColorAt(int index) {
+        long bit = 1L << index;
+        if ((blackBits & bit) != 0)
+            return Color.BLACK;
+        if ((whiteBits & bit) != 0)
+            return Color.WHITE;
+        return null;
+    }
+
+    /*
+     * Sum over the color's marbles of (RADIUS - distance from the center).
+     */
+    public int getCenterSum(Color color) {
+        return color == Color.BLACK ? blackCenter : whiteCenter;
+    }
+
+    /*
+     * Sum over the color's marbles of their same-color neighbors.
+     */
+    public int getCohesionSum(Color color) {
+        return color == Color.BLACK ? blackCohesion : whiteCohesion;
+    }
+
     public void place(HexCoordinate coord, Color color) {
-        if (isValid(coord)) {
-            pieces.put(coord, new Piece(color));
+        int index = BoardGeometry.index(coord);
+        if (index >= 0) {
+            clearCell(index);
+            addCells(color, 1L << index);
         }
     }
 
     public Piece getPieceAt(HexCoordinate coord) {
-        return pieces.get(coord);
+        int index = BoardGeometry.index(coord);
+        if (index < 0)
+            return null;
+        Color color = getColorAt(index);
+        if (color == null)
+            return null;
+        return color == Color.BLACK ? BLACK_PIECE : WHITE_PIECE;
     }
 
     public void removePieceAt(HexCoordinate coord) {
-        pieces.remove(coord);
+        int index = BoardGeometry.index(coord);
+        if (index >= 0) {
+            clearCell(index);
+        }
+    }
+
+    private void clearCell(int index) {
+        Color color = getColorAt(index);
+        if (color != null) {
+            removeCells(color, 1L << index);
+        }
+    }
+
+    /*
+     * Puts marbles of a color on the (empty) cells of 'mask', updating the hash
+     * and the evaluation sums for those cells and their neighbors only.
+     */
+    private void addCells(Color color, long mask) {
+        long bits = getBits(color);
+        int center = 0;
+        int cohesion = 0;
+        long hashDelta = 0L;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            // Each new adjacent pair adds one neighbor to both of its marbles.
+            cohesion += 2 * Long.bitCount(BoardGeometry.neighborMask(cell) & bits);
+            bits |= 1L << cell;
+            center += RADIUS - BoardGeometry.distanceFromCenter(cell);
+            hashDelta ^= Zobrist.piece(color, cell);
+        }
+        updateCells(color, bits, center, cohesion, hashDelta);
+    }
+
+    /*
+     * Counterpart of addCells for cells of 'mask' holding marbles of that color.
+     */
+    private void removeCells(Color color, long mask) {
+        long bits = getBits(color);
+        int center = 0;
+        int cohesion = 0;
+        long hashDelta = 0L;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            bits &= ~(1L << cell);
+            cohesion -= 2 * Long.bitCount(BoardGeometry.neighborMask(cell) & bits);
+            center -= RADIUS - BoardGeometry.distanceFromCenter(cell);
+            hashDelta ^= Zobrist.piece(color, cell);
+        }
+        updateCells(color, bits, center, cohesion, hashDelta);
+    }
+
+    private void updateCells(Color color, long bits, int centerDelta, int cohesionDelta, long hashDelta) {
+        if (color == Color.BLACK) {
+            blackBits = bits;
+            blackCenter += centerDelta;
+            blackCohesion += cohesionDelta;
+        } else {
+            whiteBits = bits;
+            whiteCenter += centerDelta;
+            whiteCohesion += cohesionDelta;
+        }
+        hash ^= hashDelta;
     }
 
     /*
      * Check if a coordinate is strictly within the board boundaries.
      */
     public boolean isValid(HexCoordinate coord) {
-        int q = coord.q();
-        int r = coord.r();
-        int s = -q - r;
-        return (Math.abs(q) + Math.abs(r) + Math.abs(s)) / 2 <= RADIUS;
+        return BoardGeometry.index(coord) >= 0;
     }
 
     public Map<HexCoordinate, Piece> getPieces() {
-        return new HashMap<>(pieces);
+        Map<HexCoordinate, Piece> pieces = new HashMap<>();
+        for (long bits = blackBits; bits != 0; bits &= bits - 1)
+            pieces.put(BoardGeometry.coordinate(Long.numberOfTrailingZeros(bits)), BLACK_PIECE);
+        for (long bits = whiteBits; bits != 0; bits &= bits - 1)
+            pieces.put(BoardGeometry.coordinate(Long.numberOfTrailingZeros(bits)), WHITE_PIECE);
+        return pieces;
     }
 
     public Board copy() {
         Board b = new Board(this.blackPlayer, this.whitePlayer);
-        b.pieces.clear();
-        for (Map.Entry<HexCoordinate, Piece> e : this.pieces.entrySet()) {
-            b.pieces.put(e.getKey(), new Piece(e.getValue().getColor()));
-        }
+        b.blackBits = this.blackBits;
+        b.whiteBits = this.whiteBits;
         b.blackLost = this.blackLost;
         b.whiteLost = this.whiteLost;
         b.currentTurn = this.currentTurn;
+        b.hash = this.hash;
+        b.blackCenter = this.blackCenter;
+        b.whiteCenter = this.whiteCenter;
+        b.blackCohesion = this.blackCohesion;
+        b.whiteCohesion = this.whiteCohesion;
         return b;
     }
 
@@ -97,58 +231,98 @@ public class Board implements Saveable {
      * GUI to highlight reachable cells.
      */
     public List<Move> generateLegalMoves(Color color) {
-        List<Move> moves = new ArrayList<>();
-        // Three "positive" axes used to enumerate pairs/triples without duplication.
-        int[] axisIndices = { 0, 1, 2 };
+        MoveList packed = new MoveList();
+        generateLegalMoves(color, packed);
+        List<Move> moves = new ArrayList<>(packed.size());
+        for (int i = 0; i < packed.size(); i++) {
+            moves.add(PackedMove.toMove(packed.get(i)));
+        }
+        return moves;
+    }
+
+    /**
+     * Same as {@link #generateLegalMoves(Color)} but writes {@link PackedMove
+     * packed moves} into a caller-owned list (cleared first). Allocation free,
+     * this is the variant used by the search. Each move comes tagged with its
+     * kind (quiet inline, broadside, push, ejection) and pushed-marble count.
+     */
+    public void generateLegalMoves(Color color, MoveList out) {
+        out.clear();
+        long own = getBits(color);
+        long opp = getBits(color.opposite());
 
-        for (Map.Entry<HexCoordinate, Piece> entry : pieces.entrySet()) {
-            if (entry.getValue().getColor() != color)
-                continue;
-            HexCoordinate m1 = entry.getKey();
+        for (long bits = own; bits != 0; bits &= bits - 1) {
+            int c1 = Long.numberOfTrailingZeros(bits);
 
             // Singles
             for (int d = 0; d < 6; d++) {
-                List<HexCoordinate> group = new ArrayList<>();
-                group.add(m1);
-                Move mv = new Move(group, HexCoordinate.DIRECTIONS[d]);
-                if (validateMove(mv, color))
-                    moves.add(mv);
+                addIfLegal(out, PackedMove.encode(c1, 1, 0, d), own, opp);
             }
 
-            for (int axis : axisIndices) {
-                HexCoordinate axisDir = HexCoordinate.DIRECTIONS[axis];
-                HexCoordinate m2 = m1.add(axisDir);
-                Piece p2 = pieces.get(m2);
-                if (p2 == null || p2.getColor() != color)
+            // Three "positive" axes used to enumerate pairs/triples without duplication.
+            for (int axis = 0; axis < 3; axis++) {
+                int c2 = BoardGeometry.neighbor(c1, axis);
+                if (!occupiedBy(own, c2))
                     continue;
 
                 // Pairs along this axis
                 for (int d = 0; d < 6; d++) {
-                    List<HexCoordinate> group = new ArrayList<>();
-                    group.add(m1);
-                    group.add(m2);
-                    Move mv = new Move(group, HexCoordinate.DIRECTIONS[d]);
-                    if (validateMove(mv, color))
-                        moves.add(mv);
+                    addIfLegal(out, PackedMove.encode(c1, 2, axis, d), own, opp);
                 }
 
                 // Triples along this axis
-                HexCoordinate m3 = m2.add(axisDir);
-                Piece p3 = pieces.get(m3);
-                if (p3 == null || p3.getColor() != color)
+                int c3 = BoardGeometry.neighbor(c2, axis);
+                if (!occupiedBy(own, c3))
                     continue;
                 for (int d = 0; d < 6; d++) {
-                    List<HexCoordinate> group = new ArrayList<>();
-                    group.add(m1);
-                    group.add(m2);
-                    group.add(m3);
-                    Move mv = new Move(group, HexCoordinate.DIRECTIONS[d]);
-                    if (validateMove(mv, color))
-                        moves.add(mv);
+                    addIfLegal(out, PackedMove.encode(c1, 3, axis, d), own, opp);
                 }
             }
         }
-        return moves;
+    }
+
+    /**
+     * Captures-only variant for the quiescence search: pushes and ejections,
+     * i.e. inline moves of two or three marbles whose head touches an opponent.
+     * Broadside moves and singles can never push and are not even tried.
+     */
+    public void generateCaptures(Color color, MoveList out) {
+        out.clear();
+        long own = getBits(color);
+        long opp = getBits(color.opposite());
+
+        for (long bits = own; bits != 0; bits &= bits - 1) {
+            int c1 = Long.numberOfTrailingZeros(bits);
+            for (int axis = 0; axis < 3; axis++) {
+                int c2 = BoardGeometry.neighbor(c1, axis);
+                if (!occupiedBy(own, c2))
+                    continue;
+                int c3 = BoardGeometry.neighbor(c2, axis);
+                int length = occupiedBy(own, c3) ? 3 : 2;
+                for (; length >= 2; length--) {
+                    addIfCapture(out, PackedMove.encode(c1, length, axis, axis), own, opp);
+                    addIfCapture(out, PackedMove.encode(c1, length, axis, axis + 3), own, opp);
+                }
+            }
+        }
+    }
+
+    private static void addIfLegal(MoveList out, int move, long own, long opp) {
+        int tagged = classify(move, own, opp);
+        if (tagged != PackedMove.NONE)
+            out.add(tagged);
+    }
+
+    private static void addIfCapture(MoveList out, int move, long own, long opp) {
+        if (!occupiedBy(opp, BoardGeometry.neighbor(PackedMove.head(move), PackedMove.direction(move))))
+            return;
+        int tagged = classify(move, own, opp);
+        if (tagged != PackedMove.NONE)
+            out.add(tagged);
+    }
+
+    private static boolean occupiedBy(long bits, int cell) {
+        return cell >= 0 && (bits & (1L << cell)) != 0;
     }
 
     // --- Move Logic ---
@@ -182,9 +356,29 @@ public class Board implements Saveable {
     }
 
     public void setCurrentTurn(Color currentTurn) {
+        hash ^= Zobrist.turn(this.currentTurn) ^ Zobrist.turn(currentTurn);
         this.currentTurn = currentTurn;
     }
 
+    /**
+     * 64-bit Zobrist key of the position: marbles, ejection counters and side
+     * to move. Kept up to date incrementally by every mutator.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /*
+     * Recomputes the Zobrist key from scratch (reference for the incremental one).
+     */
+    public long computeHash() {
+        return Zobrist.pieces(Color.BLACK, blackBits)
+                ^ Zobrist.pieces(Color.WHITE, whiteBits)
+                ^ Zobrist.lost(Color.BLACK, blackLost)
+                ^ Zobrist.lost(Color.WHITE, whiteLost)
+                ^ Zobrist.turn(currentTurn);
+    }
+
     public void executeMove(Move move) throws IllegalArgumentException {
         // We assume validateMove is called before, but we can re-check or assume
         // safety.
@@ -199,233 +393,230 @@ public class Board implements Saveable {
             throw new IllegalArgumentException("No piece at start position.");
         Color color = first.getColor();
 
+        MoveEvent event = new MoveEvent();
+        event.begin();
         if (!validateMove(move, color)) {
+            if (event.shouldCommit()) {
+                event.color = color.name();
+                event.move = describe(move);
+                event.commit();
+            }
             throw new IllegalArgumentException("Invalid move.");
         }
 
-        // Execute
-        HexCoordinate dir = move.getDirection();
-
-        if (isBroadside(move)) {
-            // Broadside: simple shift of all marbles
-            // We must remove all old positions first to avoid self-collision issues (though
-            // broadside never collides self)
-            // But conceptually, we pick them up and place them down.
-            // Map updates:
-            // Since broadside to empty spots, we can just move them.
-            // We need to keep the object or just create new ones.
-            List<Piece> movingPieces = new ArrayList<>();
-            for (HexCoordinate c : move.getMarbles()) {
-                movingPieces.add(pieces.remove(c));
-            }
-            for (int i = 0; i < move.getMarbles().size(); i++) {
-                HexCoordinate dest = move.getMarbles().get(i).add(dir);
-                pieces.put(dest, movingPieces.get(i));
-            }
-        } else {
-            // Inline
-            // 1. Identify Head (leading marble)
-            List<HexCoordinate> sorted = sortMarblesAlongDirection(move.getMarbles(), dir);
-            HexCoordinate head = sorted.get(sorted.size() - 1); // Last one is head in direction?
-            // Wait, sort logic depends on direction.
-            // Let's implement a specific sorter or just find the one where head + dir is
-            // NOT in marbles.
-
-            // Actually, if we sort by projection onto direction...
-            // Simple check: The one that has a neighbor in 'dir' direction that is NOT in
-            // the group is the head.
-
-            // Check if pushing
-            HexCoordinate target = head.add(dir);
-            Piece targetPiece = getPieceAt(target);
-
-            if (targetPiece == null) {
-                // Simple move into empty space
-                // Move each marble 1 step.
-                // Order matters if we update map in place?
-                // Remove all, then put all.
-                List<Piece> movingPieces = new ArrayList<>();
-                for (HexCoordinate c : move.getMarbles()) {
-                    movingPieces.add(pieces.remove(c));
-                }
-                for (int i = 0; i < move.getMarbles().size(); i++) {
-                    pieces.put(move.getMarbles().get(i).add(dir), movingPieces.get(i));
-                }
-            } else if (targetPiece.getColor() != color) {
-                // Sumito Push
-                // 1. Find line of opponents
-                List<HexCoordinate> opponents = new ArrayList<>();
-                HexCoordinate current = target;
-                while (true) {
-                    Piece p = getPieceAt(current);
-                    if (p == null || p.getColor() == color)
-                        break;
-                    opponents.add(current);
-                    current = current.add(dir);
-                }
+        int packed = PackedMove.fromMove(move);
+        int pushed = event.isEnabled()
+                ? PackedMove.pushedCount(classify(packed, getBits(color), getBits(color.opposite()))) : 0;
+        MoveUndo undo = new MoveUndo();
+        applyMove(packed, color, undo);
+        if (event.shouldCommit()) {
+            event.color = color.name();
+            event.move = describe(move);
+            event.legal = true;
+            event.pushed = pushed;
+            event.ejected = undo.ejected;
+            event.positionHash = hash;
+            event.commit();
+        }
+    }
 
-                // 2. Shift opponents (back to front to avoid overwrite)
-                // The last opponent moves to 'current' (which is empty or off-board).
-                // If 'current' is off-board, piece dies.
-                // If 'current' is on-board, put piece there.
+    private static String describe(Move move) {
+        return move.getMarbles() + " " + Direction.fromHex(move.getDirection());
+    }
 
-                // Remove all opponents
-                List<Piece> oppPieces = new ArrayList<>();
-                for (HexCoordinate c : opponents) {
-                    oppPieces.add(pieces.remove(c));
-                }
+    /**
+     * Plays a move in place for the search: no validation (the move must be
+     * legal for the color of its marbles, e.g. produced by
+     * {@link #generateLegalMoves}), the turn passes to the opponent, and the
+     * returned record restores the previous position through
+     * {@link #unmakeMove(MoveUndo)}.
+     */
+    public MoveUndo makeMove(Move move) {
+        MoveUndo undo = new MoveUndo();
+        makeMove(move, undo);
+        return undo;
+    }
 
-                // Place opponents shifted (except ejected ones)
-                for (int i = 0; i < opponents.size(); i++) {
-                    HexCoordinate dest = opponents.get(i).add(dir);
-                    if (isValid(dest)) {
-                        pieces.put(dest, oppPieces.get(i));
-                    } else {
-                        // Ejected!
-                        Piece lostPiece = oppPieces.get(i);
-                        if (lostPiece.getColor() == Color.WHITE) {
-                            whiteLost++;
-                        } else {
-                            blackLost++;
-                        }
-                    }
-                }
+    /*
+     * Same as makeMove(Move) but fills a caller-owned record, so a search can
+     * keep one per ply and never allocate.
+     */
+    public void makeMove(Move move, MoveUndo undo) {
+        makeMove(PackedMove.fromMove(move), undo);
+    }
 
-                // 3. Move own pieces
-                List<Piece> myPieces = new ArrayList<>();
-                for (HexCoordinate c : move.getMarbles()) {
-                    myPieces.add(pieces.remove(c));
-                }
-                for (int i = 0; i < move.getMarbles().size(); i++) {
-                    pieces.put(move.getMarbles().get(i).add(dir), myPieces.get(i));
+    public void makeMove(int move, MoveUndo undo) {
+        Color color = getColorAt(PackedMove.anchor(move));
+        undo.previousTurn = currentTurn;
+        undo.previousHash = hash;
+        undo.previousBlackCenter = blackCenter;
+        undo.previousWhiteCenter = whiteCenter;
+        undo.previousBlackCohesion = blackCohesion;
+        undo.previousWhiteCohesion = whiteCohesion;
+        applyMove(move, color, undo);
+        setCurrentTurn(color.opposite());
+    }
+
+    public void unmakeMove(MoveUndo undo) {
+        if (undo.mover == Color.BLACK) {
+            blackBits ^= undo.movedMask;
+            whiteBits ^= undo.pushedMask;
+            whiteLost -= undo.ejected;
+        } else {
+            whiteBits ^= undo.movedMask;
+            blackBits ^= undo.pushedMask;
+            blackLost -= undo.ejected;
+        }
+        currentTurn = undo.previousTurn;
+        hash = undo.previousHash;
+        blackCenter = undo.previousBlackCenter;
+        whiteCenter = undo.previousWhiteCenter;
+        blackCohesion = undo.previousBlackCohesion;
+        whiteCohesion = undo.previousWhiteCohesion;
+    }
+
+    private void applyMove(int move, Color color, MoveUndo undo) {
+        // Every marble moves exactly one step, so the whole move boils down to
+        // flipping the source and destination bits, for our group and for the
+        // line of opponents it pushes (if any). Destinations are always empty
+        // for the color being moved, hence a plain XOR is reversible.
+        int dir = PackedMove.direction(move);
+        long opp = getBits(color.opposite());
+
+        long movedMask = 0L;
+        for (int i = 0; i < PackedMove.length(move); i++) {
+            int cell = PackedMove.cell(move, i);
+            movedMask ^= 1L << cell;
+            movedMask ^= 1L << BoardGeometry.neighbor(cell, dir);
+        }
+
+        long pushedMask = 0L;
+        int ejected = 0;
+        if (PackedMove.isInline(move)) {
+            // Inline: walk the line of opponents in front of the head (Sumito push).
+            int[] ray = BoardGeometry.ray(PackedMove.head(move), dir);
+            for (int k = 0; k < ray.length && (opp & (1L << ray[k])) != 0; k++) {
+                pushedMask ^= 1L << ray[k];
+                if (k + 1 < ray.length) {
+                    pushedMask ^= 1L << ray[k + 1];
+                } else {
+                    // Ejected!
+                    ejected++;
                 }
             }
         }
+
+        // Lift every marble that leaves its cell before putting any down, so
+        // the cohesion updates only ever see marbles that stay in place.
+        Color oppColor = color.opposite();
+        long own = getBits(color);
+        removeCells(color, movedMask & own);
+        removeCells(oppColor, pushedMask & opp);
+        addCells(color, movedMask & ~own);
+        addCells(oppColor, pushedMask & ~opp);
+        if (color == Color.BLACK) {
+            if (ejected > 0) {
+                hash ^= Zobrist.lost(oppColor, whiteLost) ^ Zobrist.lost(oppColor, whiteLost + ejected);
+                whiteLost += ejected;
+            }
+        } else {
+            if (ejected > 0) {
+                hash ^= Zobrist.lost(oppColor, blackLost) ^ Zobrist.lost(oppColor, blackLost + ejected);
+                blackLost += ejected;
+            }
+        }
+        undo.mover = color;
+        undo.movedMask = movedMask;
+        undo.pushedMask = pushedMask;
+        undo.ejected = ejected;
     }
 
     public boolean validateMove(Move move, Color playerColor) {
         if (move.getMarbles().isEmpty())
             return false;
 
+        // Off board, not a contiguous line or not a unit direction.
+        int packed = PackedMove.fromMove(move);
+        if (packed == PackedMove.NONE)
+            return false;
+
         // 1. Ownership & Existence
-        for (HexCoordinate c : move.getMarbles()) {
-            Piece p = getPieceAt(c);
-            if (p == null || p.getColor() != playerColor)
+        long own = getBits(playerColor);
+        for (int i = 0; i < PackedMove.length(packed); i++) {
+            if (!occupiedBy(own, PackedMove.cell(packed, i)))
                 return false;
         }
 
-        if (!move.isLinear())
-            return false; // Should be checked by constructor but good to be safe
+        return classify(packed, own, getBits(playerColor.opposite())) != PackedMove.NONE;
+    }
 
-        HexCoordinate dir = move.getDirection();
+    /*
+     * Rules check for a packed move whose marbles are known to belong to 'own'.
+     * Returns the move tagged with its kind and pushed count, or NONE if it is
+     * illegal.
+     */
+    private static int classify(int move, long own, long opp) {
+        long occupied = own | opp;
+        int dir = PackedMove.direction(move);
 
-        if (isBroadside(move)) {
+        if (!PackedMove.isInline(move)) {
             // Broadside
-            for (HexCoordinate c : move.getMarbles()) {
-                HexCoordinate dest = c.add(dir);
+            for (int i = 0; i < PackedMove.length(move); i++) {
+                int dest = BoardGeometry.neighbor(PackedMove.cell(move, i), dir);
                 // Dest must be empty and VALID (on board)
                 // "You cannot move a marble off the board" - standard rule?
                 // Usually you can't suicide.
-                if (!isValid(dest))
-                    return false;
-                if (getPieceAt(dest) != null)
-                    return false;
+                if (dest < 0)
+                    return PackedMove.NONE;
+                if ((occupied & (1L << dest)) != 0)
+                    return PackedMove.NONE;
             }
-            return true;
+            return PackedMove.withKind(move, PackedMove.BROADSIDE, 0);
         } else {
             // Inline
-            List<HexCoordinate> sorted = sortMarblesAlongDirection(move.getMarbles(), dir);
-            HexCoordinate head = sorted.get(sorted.size() - 1);
-            HexCoordinate target = head.add(dir);
+            int[] ray = BoardGeometry.ray(PackedMove.head(move), dir);
 
-            if (!isValid(target)) {
+            if (ray.length == 0) {
                 // Trying to move off board?
                 // Self-ejection is typically forbidden.
-                return false;
+                return PackedMove.NONE;
             }
 
-            Piece targetPiece = getPieceAt(target);
-            if (targetPiece == null) {
-                return true; // Simple move
+            long targetBit = 1L << ray[0];
+            if ((occupied & targetBit) == 0) {
+                return PackedMove.withKind(move, PackedMove.QUIET_INLINE, 0); // Simple move
             }
 
-            if (targetPiece.getColor() == playerColor) {
-                return false; // Cannot push own
+            if ((own & targetBit) != 0) {
+                return PackedMove.NONE; // Cannot push own
             }
 
             // Sumito Check
-            // Count opponents
-            int pushPower = move.getMarbles().size();
+            // Count opponents until an empty spot or the edge of the board
+            // (pushing off board is valid if we have the advantage).
+            int pushPower = PackedMove.length(move);
             int opponentCount = 0;
-            HexCoordinate current = target;
-
-            while (true) {
-                Piece p = getPieceAt(current);
-                if (p == null) {
+            boolean ejects = true;
+            for (int cell : ray) {
+                long bit = 1L << cell;
+                if ((occupied & bit) == 0) {
                     // Empty spot found behind opponents
                     // Valid push!
+                    ejects = false;
                     break;
                 }
-                if (p.getColor() == playerColor) {
-                    return false; // Blocked by own piece
+                if ((own & bit) != 0) {
+                    return PackedMove.NONE; // Blocked by own piece
                 }
                 opponentCount++;
-                current = current.add(dir);
-
-                // Check if valid coord
-                if (!isValid(current)) {
-                    // Pushing off board!
-                    // Valid if we have advantage.
-                    break;
-                }
             }
 
-            return (pushPower > opponentCount);
+            if (pushPower <= opponentCount)
+                return PackedMove.NONE;
+            return PackedMove.withKind(move, ejects ? PackedMove.EJECTION : PackedMove.PUSH, opponentCount);
         }
     }
 
-    private boolean isBroadside(Move move) {
-        if (move.getMarbles().size() <= 1)
-            return false; // Single marble is always inline-like
-        HexCoordinate first = move.getMarbles().get(0);
-        HexCoordinate second = move.getMarbles().get(1);
-
-        // Line direction (axial difference)
-        int dq = second.q() - first.q();
-        int dr = second.r() - first.r();
-
-        // Normalize line vector is hard with loose ints.
-        // But if dir equals line vector, it's inline.
-        // Line vector can be (1,0), (-1,0), (0,1), (0,-1), (1,-1), (-1,1)
-        // Check if move direction matches line direction (or opposite)
-        HexCoordinate dir = move.getDirection();
-
-        // Simple check: if dir is parallel to line connecting 0 and 1.
-        // Parallel means cross product is 0? Or just compare.
-        // (dq, dr) vs (dir.q, dir.r)
-        // parallel if dq*dir.r == dr*dir.q?
-        return (dq * dir.r() != dr * dir.q());
-    }
-
-    // Sort marbles so the last one is the "Head" in the direction of movement
-    private List<HexCoordinate> sortMarblesAlongDirection(List<HexCoordinate> marbles, HexCoordinate dir) {
-        List<HexCoordinate> sorted = new ArrayList<>(marbles);
-        // Project onto direction vector?
-        // q*dir.q + r*dir.r ? Not quite for Hex.
-        // For hex (q,r), projection logic:
-        // A generic way: sort by (q*dir.q + r*dir.r + s*dir.s)?
-        // Let's just try all permutations or simple dot product equivalent.
-        // In cubic (x,y,z): dot product is reliable.
-        // x=q, z=r, y=-q-r.
-        // dot = c.x*d.x + c.y*d.y + c.z*d.z
-        sorted.sort((c1, c2) -> {
-            int dot1 = c1.q() * dir.q() + c1.r() * dir.r() + (-c1.q() - c1.r()) * (-dir.q() - dir.r());
-            int dot2 = c2.q() * dir.q() + c2.r() * dir.r() + (-c2.q() - c2.r()) * (-dir.q() - dir.r());
-            return Integer.compare(dot1, dot2);
-        });
-        return sorted;
-    }
-
     @Override
     public JSONObject toJSON() {
         JSONObject json = new JSONObject();
@@ -436,7 +627,7 @@ public class Board implements Saveable {
             json.put("whitePlayer", whitePlayer.toJSON());
             json.put("currentTurn", currentTurn.name());
             JSONObject piecesJson = new JSONObject();
-            for (Map.Entry<HexCoordinate, Piece> entry : pieces.entrySet()) {
+            for (Map.Entry<HexCoordinate, Piece> entry : getPieces().entrySet()) {
                 piecesJson.put(entry.getKey().toString(), entry.getValue().toJSON());
             }
             json.put("pieces", piecesJson);
@@ -455,12 +646,13 @@ public class Board implements Saveable {
             whitePlayer.fromJSON(jsonObject.getJSONObject("whitePlayer"));
             currentTurn = Color.valueOf(jsonObject.getString("currentTurn"));
             JSONObject piecesJson = jsonObject.getJSONObject("pieces");
-            pieces.clear();
+            clearAll();
             Iterator<?> keys = piecesJson.keys();
             while (keys.hasNext()) {
                 String key = (String) keys.next();
-                pieces.put(new HexCoordinate(key), new Piece(piecesJson.getJSONObject(key)));
+                place(new HexCoordinate(key), new Piece(piecesJson.getJSONObject(key)).getColor());
             }
+            hash = computeHash();
         } catch (JSONException e) {
             e.printStackTrace();
         }
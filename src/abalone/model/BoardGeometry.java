@@ -0,0 +1,142 @@
+package abalone.model;
+
+import java.util.Arrays;
+
+/**
+ * Static geometry of the hexagonal board of radius {@link Board#RADIUS},
+ * precomputed once so hot paths can walk the board with plain int cell
+ * indices instead of allocating {@link HexCoordinate}s.
+ *
+ * Cells are numbered 0..60 row by row (r = -4 at the top down to r = 4, q
+ * ascending inside a row). Directions use the order of
+ * {@link HexCoordinate#DIRECTIONS} (and {@link Direction}).
+ */
+public final class BoardGeometry {
+    public static final int CELL_COUNT = 61;
+    public static final int DIRECTION_COUNT = 6;
+    /** Longest ray kept per cell and direction: 3 pushed marbles + the cell behind. */
+    public static final int MAX_RAY = 4;
+
+    private static final int RADIUS = Board.RADIUS;
+    private static final int SPAN = 2 * RADIUS + 1;
+
+    // (q, r) square [-RADIUS, RADIUS]^2 -> cell index, -1 off-board
+    private static final int[] INDEX = new int[SPAN * SPAN];
+    private static final HexCoordinate[] COORDINATES = new HexCoordinate[CELL_COUNT];
+    private static final int[] DISTANCE = new int[CELL_COUNT];
+    // NEIGHBOR[dir][cell] = adjacent cell in that direction, -1 off-board
+    private static final int[][] NEIGHBOR = new int[DIRECTION_COUNT][CELL_COUNT];
+    // RAY[dir][cell] = up to MAX_RAY cells met walking from cell (excluded) in dir
+    private static final int[][][] RAY = new int[DIRECTION_COUNT][CELL_COUNT][];
+    // NEIGHBOR_MASK[cell] = bitset of the (up to 6) cells adjacent to cell
+    private static final long[] NEIGHBOR_MASK = new long[CELL_COUNT];
+
+    static {
+        Arrays.fill(INDEX, -1);
+        int cell = 0;
+        for (int r = -RADIUS; r <= RADIUS; r++) {
+            int minQ = Math.max(-RADIUS, -RADIUS - r);
+            int maxQ = Math.min(RADIUS, RADIUS - r);
+            for (int q = minQ; q <= maxQ; q++) {
+                INDEX[(r + RADIUS) * SPAN + (q + RADIUS)] = cell;
+                COORDINATES[cell] = new HexCoordinate(q, r);
+                DISTANCE[cell] = (Math.abs(q) + Math.abs(r) + Math.abs(q + r)) / 2;
+                cell++;
+            }
+        }
+
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            HexCoordinate dir = HexCoordinate.DIRECTIONS[d];
+            for (int c = 0; c < CELL_COUNT; c++) {
+                HexCoordinate from = COORDINATES[c];
+                NEIGHBOR[d][c] = index(from.q() + dir.q(), from.r() + dir.r());
+                if (NEIGHBOR[d][c] >= 0) {
+                    NEIGHBOR_MASK[c] |= 1L << NEIGHBOR[d][c];
+                }
+
+                int[] ray = new int[MAX_RAY];
+                int length = 0;
+                int next = NEIGHBOR[d][c];
+                while (next >= 0 && length < MAX_RAY) {
+                    ray[length++] = next;
+                    HexCoordinate at = COORDINATES[next];
+                    next = index(at.q() + dir.q(), at.r() + dir.r());
+                }
+                RAY[d][c] = Arrays.copyOf(ray, length);
+            }
+        }
+    }
+
+    private BoardGeometry() {}
+
+    /**
+     * Cell index of (q, r), or -1 if the coordinate is off the board.
+     */
+    public static int index(int q, int r) {
+        if (q < -RADIUS || q > RADIUS || r < -RADIUS || r > RADIUS)
+            return -1;
+        return INDEX[(r + RADIUS) * SPAN + (q + RADIUS)];
+    }
+
+    public static int index(HexCoordinate coord) {
+        return index(coord.q(), coord.r());
+    }
+
+    /*
+     * Interned coordinate of a cell. The same instance is returned on every call.
+     */
+    public static HexCoordinate coordinate(int cell) {
+        return COORDINATES[cell];
+    }
+
+    public static boolean isValid(int q, int r) {
+        return index(q, r) >= 0;
+    }
+
+    /*
+     * Neighbor of a cell in a direction (0-5), -1 if it falls off the board.
+     */
+    public static int neighbor(int cell, int direction) {
+        return NEIGHBOR[direction][cell];
+    }
+
+    /*
+     * Bitset of the cells adjacent to a cell.
+     */
+    public static long neighborMask(int cell) {
+        return NEIGHBOR_MASK[cell];
+    }
+
+    /**
+     * Cells met when walking from {@code cell} (excluded) in a direction,
+     * nearest first, stopping at the edge or after {@link #MAX_RAY} cells.
+     * The returned array is shared and must not be modified.
+     */
+    public static int[] ray(int cell, int direction) {
+        return RAY[direction][cell];
+    }
+
+    /*
+     * Hex distance from the center cell (0..RADIUS).
+     */
+    public static int distanceFromCenter(int cell) {
+        return DISTANCE[cell];
+    }
+
+    /**
+     * Index (0-5) of the unit step (dq, dr) in {@link HexCoordinate#DIRECTIONS},
+     * or -1 if it is not one of the six directions.
+     */
+    public static int directionIndex(int dq, int dr) {
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            HexCoordinate dir = HexCoordinate.DIRECTIONS[d];
+            if (dir.q() == dq && dir.r() == dr)
+                return d;
+        }
+        return -1;
+    }
+
+    public static int directionIndex(HexCoordinate dir) {
+        return directionIndex(dir.q(), dir.r());
+    }
+}
@@ -1,7 +1,5 @@
 package abalone.model;
 
-import java.util.Objects;
-
 public class HexCoordinate {
     private final int q; // column
     private final int r; // row
@@ -43,7 +41,10 @@ public class HexCoordinate {
     };
 
     public HexCoordinate neighbor(int directionIndex) {
-        return this.add(DIRECTIONS[directionIndex % 6]);
+        HexCoordinate dir = DIRECTIONS[directionIndex % 6];
+        // On-board neighbors come from the interned table, only off-board ones allocate.
+        int cell = BoardGeometry.index(q + dir.q, r + dir.r);
+        return cell >= 0 ? BoardGeometry.coordinate(cell) : this.add(dir);
     }
 
     @Override
@@ -56,7 +57,7 @@ public class HexCoordinate {
 
     @Override
     public int hashCode() {
-        return Objects.hash(q, r);
+        return 31 * q + r;
     }
 
     @Override
@@ -0,0 +1,89 @@
+package abalone.model;
+
+import java.util.Arrays;
+
+/**
+ * Legal moves of one side in one position, indexed by the group of marbles
+ * they move: for each selection of 1 to 3 marbles, the set of cells the
+ * player can click to move it (the cells the marbles step into, minus those
+ * the selection itself occupies). Built once per position, after which every
+ * selection is a lookup.
+ *
+ * Selections and destinations are bitsets of cell indices
+ * ({@link BoardGeometry}), kept in sorted primitive arrays so a lookup is a
+ * binary search that never allocates.
+ */
+public final class LegalMoveIndex {
+    private final long hash;
+    private final Color color;
+    // Distinct selection bitsets, ascending, and their destination bitsets.
+    private final long[] selections;
+    private final long[] destinations;
+
+    public LegalMoveIndex(Board board, Color color) {
+        this.hash = board.getHash();
+        this.color = color;
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(color, moves);
+        long[] keys = new long[moves.size()];
+        long[] values = new long[moves.size()];
+        int size = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int dir = PackedMove.direction(move);
+            long selection = 0L;
+            long targets = 0L;
+            for (int k = 0; k < PackedMove.length(move); k++) {
+                int cell = PackedMove.cell(move, k);
+                selection |= 1L << cell;
+                int dest = BoardGeometry.neighbor(cell, dir);
+                if (dest >= 0) targets |= 1L << dest; // legal moves never step off the board
+            }
+            targets &= ~selection;
+
+            // Insertion into the sorted keys; a group with several legal
+            // directions gets the union of their destinations.
+            int at = Arrays.binarySearch(keys, 0, size, selection);
+            if (at >= 0) {
+                values[at] |= targets;
+            } else {
+                at = -at - 1;
+                System.arraycopy(keys, at, keys, at + 1, size - at);
+                System.arraycopy(values, at, values, at + 1, size - at);
+                keys[at] = selection;
+                values[at] = targets;
+                size++;
+            }
+        }
+        this.selections = Arrays.copyOf(keys, size);
+        this.destinations = Arrays.copyOf(values, size);
+    }
+
+    /*
+     * Whether this index still describes 'board' with 'color' to move.
+     */
+    public boolean matches(Board board, Color color) {
+        return this.color == color && hash == board.getHash();
+    }
+
+    /*
+     * Destinations of a selection bitset, 0 if it cannot move.
+     */
+    public long destinations(long selection) {
+        int at = Arrays.binarySearch(selections, selection);
+        return at < 0 ? 0L : destinations[at];
+    }
+
+    /*
+     * Bitset of the given cells, 0 if any of them is off the board.
+     */
+    public static long selection(Iterable<HexCoordinate> cells) {
+        long mask = 0L;
+        for (HexCoordinate c : cells) {
+            int cell = BoardGeometry.index(c);
+            if (cell < 0) return 0L;
+            mask |= 1L << cell;
+        }
+        return mask;
+    }
+}
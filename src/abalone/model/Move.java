@@ -33,30 +33,20 @@ public class Move {
         if (marbles.size() <= 1)
             return true;
 
-        // Check if all align on q, r, or s
-        boolean sameQ = marbles.stream().allMatch(m -> m.q() == marbles.get(0).q());
-        boolean sameR = marbles.stream().allMatch(m -> m.r() == marbles.get(0).r());
-        boolean sameS = marbles.stream().allMatch(m -> (m.q() + m.r()) == (marbles.get(0).q() + marbles.get(0).r())); // -s
-                                                                                                                      // constant
-                                                                                                                      // implies
-                                                                                                                      // x+y
-                                                                                                                      // constant
-
-        if (!sameQ && !sameR && !sameS)
+        // Sorted by q then r, so along any of the three axes consecutive
+        // marbles are separated by the same unit step.
+        HexCoordinate first = marbles.get(0);
+        HexCoordinate second = marbles.get(1);
+        int dq = second.q() - first.q();
+        int dr = second.r() - first.r();
+        if (BoardGeometry.directionIndex(dq, dr) < 0)
             return false;
 
-        // Check adjacency (already sorted)
-        // If sorted, distance between adjacent elements in list must be 1.
-        for (int i = 0; i < marbles.size() - 1; i++) {
+        for (int i = 1; i < marbles.size() - 1; i++) {
             HexCoordinate c1 = marbles.get(i);
             HexCoordinate c2 = marbles.get(i + 1);
-            if (c1.add(c2.add(new HexCoordinate(-c1.q(), -c1.r()))).q() != 0) {
-                // Simple distance check might be better
-                int dist = (Math.abs(c1.q() - c2.q()) + Math.abs(c1.r() - c2.r())
-                        + Math.abs(c1.q() + c1.r() - (c2.q() + c2.r()))) / 2;
-                if (dist != 1)
-                    return false;
-            }
+            if (c2.q() - c1.q() != dq || c2.r() - c1.r() != dr)
+                return false;
         }
         return true;
     }
@@ -0,0 +1,38 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a move played in the game
+ * ({@link Board#executeMove}): validation and update of the board. Moves
+ * made and unmade by the search are not recorded.
+ */
+@Name("abalone.ExecuteMove")
+@Label("Execute Move")
+@Category({"Abalone", "Game"})
+@Description("A move validated and played on the game board")
+final class MoveEvent extends Event {
+    @Label("Color")
+    String color;
+
+    @Label("Move")
+    String move;
+
+    @Label("Legal")
+    boolean legal;
+
+    @Label("Pushed")
+    @Description("Opponent marbles pushed")
+    int pushed;
+
+    @Label("Ejected")
+    int ejected;
+
+    @Label("Position Hash")
+    @Description("Zobrist hash of the position after the move")
+    long positionHash;
+}
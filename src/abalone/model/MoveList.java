@@ -0,0 +1,97 @@
+package abalone.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Growable list of {@link PackedMove packed moves} with a parallel score array
+ * used for move ordering. Meant to be allocated once per search ply and
+ * cleared/refilled at every node, so it never allocates once warmed up.
+ */
+public final class MoveList {
+    private int[] moves;
+    private int[] scores;
+    private int size;
+
+    public MoveList() {
+        this(128);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+        scores = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        moves[size] = move;
+        scores[size] = 0;
+        size++;
+    }
+
+    public int get(int i) {
+        return moves[i];
+    }
+
+    public int getScore(int i) {
+        return scores[i];
+    }
+
+    public void setScore(int i, int score) {
+        scores[i] = score;
+    }
+
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.sameMove(moves[i], move))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Stable sort by descending score. Insertion sort: lists are short (a few
+     * dozen moves) and often nearly ordered already.
+     */
+    public void sortByScore() {
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    public void shuffle(Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
+            int score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package abalone.model;
+
+/**
+ * Undo record filled by {@link Board#makeMove(Move, MoveUndo)}. Holds just
+ * enough to restore the previous position: the bits flipped for the moving
+ * marbles and for the pushed opponents, the number of ejected marbles, and the
+ * turn, Zobrist hash and evaluation sums before the move. Search code keeps one instance per ply and reuses it.
+ */
+public final class MoveUndo {
+    Color mover;
+    long movedMask;   // XOR mask applied to the mover's bitset (sources + destinations)
+    long pushedMask;  // XOR mask applied to the opponent's bitset
+    int ejected;      // opponent marbles pushed off the board by this move
+    Color previousTurn;
+    long previousHash;
+    int previousBlackCenter;
+    int previousWhiteCenter;
+    int previousBlackCohesion;
+    int previousWhiteCohesion;
+
+    public Color getMover() {
+        return mover;
+    }
+
+    public int getEjected() {
+        return ejected;
+    }
+}
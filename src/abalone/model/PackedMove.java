@@ -0,0 +1,154 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes a move in a single int so the search can generate, store and sort
+ * moves without allocating. {@link Move} objects are only built at the API
+ * boundary (GUI, console, {@code AIPlayer.chooseMove}).
+ *
+ * Layout (low bits first):
+ * <pre>
+ *   bits 0-5   anchor cell (0..60, see {@link BoardGeometry})
+ *   bits 6-7   group length (1..3)
+ *   bits 8-9   axis (0..2): the group is anchor, anchor+axis, anchor+2*axis
+ *   bits 10-12 direction of movement (0..5)
+ *   bits 13-14 kind: quiet inline, broadside, sumito push or ejection
+ *   bits 15-16 number of opponent marbles pushed (0..2)
+ * </pre>
+ * Single marbles always use axis 0. The kind and pushed count are filled by
+ * {@link Board#generateLegalMoves(Color, MoveList)}; they describe the move
+ * in the position it was generated for. {@link #fromMove} leaves them at 0,
+ * compare such moves with {@link #sameMove}.
+ */
+public final class PackedMove {
+    public static final int NONE = -1;
+
+    // Move kinds, in increasing order of tactical interest.
+    public static final int QUIET_INLINE = 0;
+    public static final int BROADSIDE = 1;
+    public static final int PUSH = 2;
+    public static final int EJECTION = 3;
+
+    private static final int CELL_MASK = 0x3F;
+    private static final int LENGTH_SHIFT = 6;
+    private static final int AXIS_SHIFT = 8;
+    private static final int DIRECTION_SHIFT = 10;
+    private static final int KIND_SHIFT = 13;
+    private static final int PUSHED_SHIFT = 15;
+    private static final int GEOMETRY_MASK = (1 << KIND_SHIFT) - 1;
+
+    private PackedMove() {}
+
+    public static int encode(int anchor, int length, int axis, int direction) {
+        return anchor | (length << LENGTH_SHIFT) | (axis << AXIS_SHIFT) | (direction << DIRECTION_SHIFT);
+    }
+
+    public static int anchor(int move) {
+        return move & CELL_MASK;
+    }
+
+    public static int length(int move) {
+        return (move >>> LENGTH_SHIFT) & 0x3;
+    }
+
+    public static int axis(int move) {
+        return (move >>> AXIS_SHIFT) & 0x3;
+    }
+
+    public static int direction(int move) {
+        return (move >>> DIRECTION_SHIFT) & 0x7;
+    }
+
+    public static int kind(int move) {
+        return (move >>> KIND_SHIFT) & 0x3;
+    }
+
+    public static int pushedCount(int move) {
+        return (move >>> PUSHED_SHIFT) & 0x3;
+    }
+
+    /*
+     * Returns the move tagged with its kind and pushed count.
+     */
+    public static int withKind(int move, int kind, int pushedCount) {
+        return (move & GEOMETRY_MASK) | (kind << KIND_SHIFT) | (pushedCount << PUSHED_SHIFT);
+    }
+
+    /*
+     * Pushes and ejections: the moves that change material or threaten to.
+     */
+    public static boolean isCapture(int move) {
+        return kind(move) >= PUSH;
+    }
+
+    /*
+     * Same marbles and direction, whatever the kind tags.
+     */
+    public static boolean sameMove(int a, int b) {
+        return (a & GEOMETRY_MASK) == (b & GEOMETRY_MASK);
+    }
+
+    /*
+     * Inline moves go along the group's own line (singles always do), and can push.
+     */
+    public static boolean isInline(int move) {
+        return length(move) == 1 || direction(move) % 3 == axis(move);
+    }
+
+    /*
+     * i-th marble of the group (0 = anchor).
+     */
+    public static int cell(int move, int i) {
+        int cell = anchor(move);
+        int axis = axis(move);
+        for (int k = 0; k < i; k++) {
+            cell = BoardGeometry.neighbor(cell, axis);
+        }
+        return cell;
+    }
+
+    /**
+     * Leading marble of an inline move: the last one along the axis when moving
+     * in the axis direction, the anchor when moving the opposite way.
+     */
+    public static int head(int move) {
+        return direction(move) == axis(move) ? cell(move, length(move) - 1) : anchor(move);
+    }
+
+    public static Move toMove(int move) {
+        List<HexCoordinate> marbles = new ArrayList<>(3);
+        for (int i = 0; i < length(move); i++) {
+            marbles.add(BoardGeometry.coordinate(cell(move, i)));
+        }
+        return new Move(marbles, HexCoordinate.DIRECTIONS[direction(move)]);
+    }
+
+    /**
+     * Packs a {@link Move}, or returns {@link #NONE} if its marbles are off the
+     * board, not a contiguous line, or its direction is not a unit step.
+     */
+    public static int fromMove(Move move) {
+        List<HexCoordinate> marbles = move.getMarbles();
+        int direction = BoardGeometry.directionIndex(move.getDirection());
+        if (direction < 0 || !move.isLinear())
+            return NONE;
+        for (HexCoordinate c : marbles) {
+            if (BoardGeometry.index(c) < 0)
+                return NONE;
+        }
+        if (marbles.size() == 1)
+            return encode(BoardGeometry.index(marbles.get(0)), 1, 0, direction);
+
+        // Move keeps its marbles sorted by q then r, which walks the line either
+        // along one of the three positive axes (anchor first) or against it
+        // (anchor last).
+        HexCoordinate first = marbles.get(0);
+        HexCoordinate second = marbles.get(1);
+        int step = BoardGeometry.directionIndex(second.q() - first.q(), second.r() - first.r());
+        if (step < 3)
+            return encode(BoardGeometry.index(first), marbles.size(), step, direction);
+        return encode(BoardGeometry.index(marbles.get(marbles.size() - 1)), marbles.size(), step - 3, direction);
+    }
+}
@@ -0,0 +1,62 @@
+package abalone.model;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of board positions. A position hash is the
+ * XOR of the key of every marble on its cell, of both ejection counters and of
+ * the side to move, so a move only has to XOR in/out what it changes.
+ *
+ * Keys come from a fixed seed: hashes are stable across runs and can be
+ * stored (opening books, saved games).
+ */
+public final class Zobrist {
+    // Ejection counters go up to the 14 marbles of a side.
+    private static final int MAX_LOST = 14;
+
+    private static final long[][] PIECE = new long[2][BoardGeometry.CELL_COUNT];
+    private static final long[][] LOST = new long[2][MAX_LOST + 1];
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        Random random = new Random(0xAB410E5EEDL);
+        for (int c = 0; c < 2; c++) {
+            for (int cell = 0; cell < BoardGeometry.CELL_COUNT; cell++) {
+                PIECE[c][cell] = random.nextLong();
+            }
+            for (int n = 0; n <= MAX_LOST; n++) {
+                LOST[c][n] = random.nextLong();
+            }
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    public static long piece(Color color, int cell) {
+        return PIECE[color.ordinal()][cell];
+    }
+
+    /*
+     * XOR of the keys of every cell set in 'bits' for that color.
+     */
+    public static long pieces(Color color, long bits) {
+        long[] keys = PIECE[color.ordinal()];
+        long key = 0L;
+        for (long rest = bits; rest != 0; rest &= rest - 1) {
+            key ^= keys[Long.numberOfTrailingZeros(rest)];
+        }
+        return key;
+    }
+
+    /*
+     * Key of the ejection counter of a color (marbles that color has lost).
+     */
+    public static long lost(Color color, int count) {
+        return LOST[color.ordinal()][count];
+    }
+
+    public static long turn(Color toMove) {
+        return toMove == Color.WHITE ? WHITE_TO_MOVE : 0L;
+    }
+}
@@ -0,0 +1,402 @@
+package abalone.tools;
+
+import abalone.ai.AlphaBetaStrategy;
+import abalone.ai.SearchResult;
+import abalone.ai.SearchStats;
+import abalone.ai.Difficulty;
+import abalone.ai.OpeningBook;
+import abalone.ai.SearchVariant;
+import abalone.ai.TranspositionTable;
+import abalone.model.Board;
+import abalone.model.Color;
+import abalone.model.Move;
+import abalone.model.MoveList;
+import abalone.model.MoveUndo;
+import abalone.model.PackedMove;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless engine match: two search configurations play each other, with no
+ * Swing involved, on every core. Openings are the standard setup followed
+ * by a few random plies; each opening is played twice, colors swapped, so
+ * neither side benefits from a lucky line.
+ *
+ * Reports win/draw/loss of engine A, the Elo difference with its 95% error
+ * margin, a sequential probability ratio test (SPRT) verdict between
+ * "A is elo0 stronger" (H0) and "A is elo1 stronger" (H1), and the move
+ * latency and search statistics (depth, nodes per second...) of each
+ * engine. With --sprt the match stops as soon as the test concludes.
+ *
+ * Usage:
+ * <pre>
+ *   Arena --a SPEC --b SPEC [--games N] [--threads N] [--random-plies N]
+ *         [--max-plies N] [--sprt elo0,elo1[,alpha,beta]] [--seed N]
+ * </pre>
+ * SPEC is a {@link Difficulty} name and/or comma-separated settings, e.g.
+ * {@code HARD,threads=1}, {@code depth=4,time=0,variant=ALPHA_BETA} or
+ * {@code time=500,nmp=true,lmr=false,tt=32,book=opening.book}.
+ */
+public final class Arena {
+    private static final int TABLE_MB = 8;
+
+    private final Engine engineA;
+    private final Engine engineB;
+    private final int games;
+    private final int threads;
+    private final int randomPlies;
+    private final int maxPlies;
+    private final long seed;
+    private final Sprt sprt;
+
+    private int wins;
+    private int draws;
+    private int losses;
+    private final List<long[]> latenciesA = new ArrayList<>();
+    private final List<long[]> latenciesB = new ArrayList<>();
+    // Summed over the recorded games.
+    private final SearchStats statsA = new SearchStats();
+    private final SearchStats statsB = new SearchStats();
+
+    private Arena(Engine engineA, Engine engineB, int games, int threads, int randomPlies, int maxPlies,
+                  long seed, Sprt sprt) {
+        this.engineA = engineA;
+        this.engineB = engineB;
+        this.games = games;
+        this.threads = threads;
+        this.randomPlies = randomPlies;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+        this.sprt = sprt;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String a = null;
+        String b = null;
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int randomPlies = 4;
+        int maxPlies = 300;
+        long seed = 1;
+        Sprt sprt = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--a": a = value; break;
+                case "--b": b = value; break;
+                case "--games": games = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--random-plies": randomPlies = Integer.parseInt(value); break;
+                case "--max-plies": maxPlies = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--sprt": sprt = Sprt.parse(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (a == null || b == null) {
+            System.err.println("Usage: Arena --a SPEC --b SPEC [--games N] [--threads N] [--random-plies N]"
+                    + " [--max-plies N] [--sprt elo0,elo1[,alpha,beta]] [--seed N]");
+            System.exit(2);
+        }
+        Arena arena = new Arena(Engine.parse(a), Engine.parse(b), games, threads, randomPlies, maxPlies, seed, sprt);
+        arena.run();
+    }
+
+    private void run() throws Exception {
+        System.out.println("A: " + engineA);
+        System.out.println("B: " + engineB);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<GameResult>> results = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            final int game = i;
+            // Games 2k and 2k+1 share an opening, A plays Black in the first.
+            final Color colorA = game % 2 == 0 ? Color.BLACK : Color.WHITE;
+            final long openingSeed = seed + game / 2;
+            results.add(executor.submit(() -> playGame(openingSeed, colorA)));
+        }
+
+        long start = System.nanoTime();
+        String verdict = null;
+        for (int i = 0; i < results.size() && verdict == null; i++) {
+            record(results.get(i).get());
+            int played = wins + draws + losses;
+            if (sprt != null) {
+                verdict = sprt.verdict(wins, draws, losses);
+            }
+            if (played % 10 == 0 || played == games || verdict != null) {
+                System.out.printf("%d games: +%d =%d -%d  %s%n", played, wins, draws, losses, elo());
+            }
+        }
+        executor.shutdownNow();
+
+        System.out.println();
+        System.out.printf("Result A vs B: +%d =%d -%d (%d games, %.1f s)%n", wins, draws, losses,
+                wins + draws + losses, (System.nanoTime() - start) / 1e9);
+        System.out.println("Elo: " + elo());
+        if (sprt != null) {
+            System.out.printf("SPRT %s: LLR %.2f [%.2f, %.2f] -> %s%n", sprt, sprt.llr(wins, draws, losses),
+                    sprt.lowerBound(), sprt.upperBound(), verdict == null ? "inconclusive" : verdict);
+        }
+        System.out.println("Latency A: " + latency(latenciesA));
+        System.out.println("Latency B: " + latency(latenciesB));
+        System.out.println("Search A: " + statsA);
+        System.out.println("Search B: " + statsB);
+    }
+
+    private GameResult playGame(long openingSeed, Color colorA) {
+        Board board = new Board();
+        MoveUndo undo = new MoveUndo();
+        Random random = new Random(openingSeed);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < randomPlies; ply++) {
+            board.generateLegalMoves(board.getCurrentTurn(), moves);
+            if (moves.isEmpty()) break;
+            board.makeMove(moves.get(random.nextInt(moves.size())), undo);
+        }
+
+        AlphaBetaStrategy a = engineA.create();
+        AlphaBetaStrategy b = engineB.create();
+        long[] timesA = new long[maxPlies];
+        long[] timesB = new long[maxPlies];
+        SearchStats gameStatsA = new SearchStats();
+        SearchStats gameStatsB = new SearchStats();
+        int movesA = 0;
+        int movesB = 0;
+        Color winner = null;
+        for (int ply = 0; ply < maxPlies && winner == null; ply++) {
+            Color toMove = board.getCurrentTurn();
+            boolean aToMove = toMove == colorA;
+            long t0 = System.nanoTime();
+            SearchResult result = (aToMove ? a : b).search(board, toMove);
+            long elapsed = System.nanoTime() - t0;
+            (aToMove ? gameStatsA : gameStatsB).add(result.getStats());
+            Move move = result.getMove();
+            if (aToMove) {
+                timesA[movesA++] = elapsed;
+            } else {
+                timesB[movesB++] = elapsed;
+            }
+            if (move == null) {
+                winner = toMove.opposite(); // no legal move left
+                break;
+            }
+            board.makeMove(PackedMove.fromMove(move), undo);
+            if (board.getWhiteLost() >= 6) winner = Color.BLACK;
+            if (board.getBlackLost() >= 6) winner = Color.WHITE;
+        }
+        int score = winner == null ? 1 : winner == colorA ? 2 : 0;
+        return new GameResult(score, Arrays.copyOf(timesA, movesA), Arrays.copyOf(timesB, movesB),
+                gameStatsA, gameStatsB);
+    }
+
+    private void record(GameResult result) {
+        if (result.scoreA == 2) wins++;
+        else if (result.scoreA == 1) draws++;
+        else losses++;
+        latenciesA.add(result.timesA);
+        latenciesB.add(result.timesB);
+        statsA.add(result.statsA);
+        statsB.add(result.statsB);
+    }
+
+    /*
+     * Elo difference of A over B, with its 95% confidence margin.
+     */
+    private String elo() {
+        int n = wins + draws + losses;
+        if (n == 0) return "n/a";
+        double score = (wins + 0.5 * draws) / n;
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / n;
+        double margin = 1.96 * Math.sqrt(variance / n);
+        double elo = eloFromScore(score);
+        double low = eloFromScore(Math.max(score - margin, 1e-6));
+        double high = eloFromScore(Math.min(score + margin, 1 - 1e-6));
+        return String.format("%+.1f +/- %.1f (score %.3f)", elo, (high - low) / 2, score);
+    }
+
+    private static double eloFromScore(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private static String latency(List<long[]> games) {
+        int count = 0;
+        for (long[] times : games) count += times.length;
+        if (count == 0) return "n/a";
+        long[] all = new long[count];
+        int i = 0;
+        long total = 0;
+        for (long[] times : games) {
+            for (long t : times) {
+                all[i++] = t;
+                total += t;
+            }
+        }
+        Arrays.sort(all);
+        return String.format("%d moves, mean %.1f ms, p50 %.1f ms, p95 %.1f ms, max %.1f ms", count,
+                total / 1e6 / count, all[count / 2] / 1e6, all[(int) (count * 0.95)] / 1e6, all[count - 1] / 1e6);
+    }
+
+    private static final class GameResult {
+        final int scoreA; // 2 win, 1 draw, 0 loss
+        final long[] timesA;
+        final long[] timesB;
+        final SearchStats statsA;
+        final SearchStats statsB;
+
+        GameResult(int scoreA, long[] timesA, long[] timesB, SearchStats statsA, SearchStats statsB) {
+            this.scoreA = scoreA;
+            this.timesA = timesA;
+            this.timesB = timesB;
+            this.statsA = statsA;
+            this.statsB = statsB;
+        }
+    }
+
+    /*
+     * One side of the match: everything needed to build a fresh strategy per game.
+     */
+    private static final class Engine {
+        int maxDepth = Difficulty.NO_DEPTH_LIMIT;
+        long timeMillis = 1000;
+        SearchVariant variant = SearchVariant.PVS;
+        boolean nullMove;
+        boolean lmr;
+        int tableMegabytes = TABLE_MB;
+        String book;
+        private final String spec;
+
+        private Engine(String spec) {
+            this.spec = spec;
+        }
+
+        static Engine parse(String spec) {
+            Engine engine = new Engine(spec);
+            for (String part : spec.split(",")) {
+                String item = part.trim();
+                if (item.isEmpty()) continue;
+                int eq = item.indexOf('=');
+                if (eq < 0) {
+                    Difficulty d = Difficulty.valueOf(item.toUpperCase());
+                    engine.maxDepth = d.getMaxDepth();
+                    engine.timeMillis = d.getTimeLimitMillis();
+                    engine.nullMove = d.usesNullMovePruning();
+                    engine.lmr = d.usesLateMoveReductions();
+                    continue;
+                }
+                String key = item.substring(0, eq).trim();
+                String value = item.substring(eq + 1).trim();
+                switch (key) {
+                    case "depth": engine.maxDepth = Integer.parseInt(value); break;
+                    case "time": engine.timeMillis = Long.parseLong(value); break;
+                    case "variant": engine.variant = SearchVariant.valueOf(value.toUpperCase()); break;
+                    case "nmp": engine.nullMove = Boolean.parseBoolean(value); break;
+                    case "lmr": engine.lmr = Boolean.parseBoolean(value); break;
+                    case "tt": engine.tableMegabytes = Integer.parseInt(value); break;
+                    case "book": engine.book = value; break;
+                    // Games already run in parallel: one search thread per game.
+                    case "threads": break;
+                    default: throw new IllegalArgumentException("Unknown engine setting: " + key);
+                }
+            }
+            return engine;
+        }
+
+        AlphaBetaStrategy create() {
+            AlphaBetaStrategy strategy = new AlphaBetaStrategy(maxDepth, timeMillis,
+                    new TranspositionTable(tableMegabytes));
+            strategy.setVariant(variant);
+            strategy.setNullMovePruning(nullMove);
+            strategy.setLateMoveReductions(lmr);
+            if (book != null) {
+                try {
+                    strategy.setOpeningBook(OpeningBook.open(Paths.get(book)));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot open book " + book, e);
+                }
+            }
+            return strategy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (depth %s, %d ms, %s, null move %s, LMR %s)", spec,
+                    maxDepth == Difficulty.NO_DEPTH_LIMIT ? "unlimited" : String.valueOf(maxDepth),
+                    timeMillis, variant, nullMove ? "on" : "off", lmr ? "on" : "off");
+        }
+    }
+
+    /*
+     * Sequential probability ratio test on the game results, using the
+     * normal approximation of the log-likelihood ratio on the mean score.
+     */
+    private static final class Sprt {
+        final double elo0;
+        final double elo1;
+        final double alpha;
+        final double beta;
+
+        Sprt(double elo0, double elo1, double alpha, double beta) {
+            this.elo0 = elo0;
+            this.elo1 = elo1;
+            this.alpha = alpha;
+            this.beta = beta;
+        }
+
+        static Sprt parse(String value) {
+            String[] parts = value.split(",");
+            double alpha = parts.length > 2 ? Double.parseDouble(parts[2]) : 0.05;
+            double beta = parts.length > 3 ? Double.parseDouble(parts[3]) : alpha;
+            return new Sprt(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), alpha, beta);
+        }
+
+        double lowerBound() {
+            return Math.log(beta / (1 - alpha));
+        }
+
+        double upperBound() {
+            return Math.log((1 - beta) / alpha);
+        }
+
+        double llr(int wins, int draws, int losses) {
+            int n = wins + draws + losses;
+            if (n == 0) return 0;
+            double score = (wins + 0.5 * draws) / n;
+            double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                    + losses * Math.pow(score, 2)) / n;
+            if (variance == 0) return 0; // all results identical so far
+            double s0 = expectedScore(elo0);
+            double s1 = expectedScore(elo1);
+            return n * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+        }
+
+        /*
+         * "H1" or "H0" once a bound is crossed, null while undecided.
+         */
+        String verdict(int wins, int draws, int losses) {
+            double llr = llr(wins, draws, losses);
+            if (llr >= upperBound()) return "H1 accepted (A is stronger by about " + elo1 + " Elo)";
+            if (llr <= lowerBound()) return "H0 accepted (A is not stronger than " + elo0 + " Elo)";
+            return null;
+        }
+
+        private static double expectedScore(double elo) {
+            return 1 / (1 + Math.pow(10, -elo / 400));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("elo0=%.1f elo1=%.1f alpha=%.2f beta=%.2f", elo0, elo1, alpha, beta);
+        }
+    }
+}
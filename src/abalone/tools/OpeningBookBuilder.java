@@ -0,0 +1,131 @@
+package abalone.tools;
+
+import abalone.ai.AlphaBetaStrategy;
+import abalone.ai.OpeningBook;
+import abalone.ai.TranspositionTable;
+import abalone.model.Board;
+import abalone.model.Color;
+import abalone.model.Move;
+import abalone.model.MoveUndo;
+import abalone.model.PackedMove;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an {@link OpeningBook} from self-play. Games start from the
+ * standard setup and are played out by fixed-depth searches (their random
+ * tie-breaking makes the games differ). Every move of the first plies
+ * counts for the side that played it: 2 for a win, 1 for a draw, 0 for a
+ * loss, so the book favours the moves that did well.
+ *
+ * Usage: {@code OpeningBookBuilder [output] [games] [bookPlies] [depth]}
+ */
+public final class OpeningBookBuilder {
+    private static final int DEFAULT_GAMES = 200;
+    private static final int DEFAULT_BOOK_PLIES = 10;
+    private static final int DEFAULT_DEPTH = 3;
+    // Games still running after this many plies are scored as draws.
+    private static final int MAX_GAME_PLIES = 200;
+    private static final int TABLE_MB = 8;
+
+    private OpeningBookBuilder() {}
+
+    public static void main(String[] args) throws Exception {
+        Path output = Paths.get(args.length > 0 ? args[0] : OpeningBook.DEFAULT_FILE);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        int bookPlies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BOOK_PLIES;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<GameRecord>> results = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            results.add(executor.submit(() -> playGame(bookPlies, depth)));
+        }
+
+        Map<Long, Map<Integer, Integer>> positions = new HashMap<>();
+        int finished = 0;
+        for (Future<GameRecord> result : results) {
+            GameRecord game = result.get();
+            game.addTo(positions);
+            finished++;
+            if (finished % 10 == 0 || finished == games) {
+                System.out.printf("%d/%d games, %d positions%n", finished, games, positions.size());
+            }
+        }
+        executor.shutdown();
+
+        try {
+            OpeningBook.write(output, positions);
+        } catch (IOException e) {
+            System.err.println("Cannot write " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Opening book written to " + output);
+    }
+
+    private static GameRecord playGame(int bookPlies, int depth) {
+        Board board = new Board();
+        AlphaBetaStrategy black = new AlphaBetaStrategy(depth, 0, new TranspositionTable(TABLE_MB));
+        AlphaBetaStrategy white = new AlphaBetaStrategy(depth, 0, new TranspositionTable(TABLE_MB));
+        GameRecord record = new GameRecord(bookPlies);
+        MoveUndo undo = new MoveUndo();
+
+        for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+            Color toMove = board.getCurrentTurn();
+            Move move = (toMove == Color.BLACK ? black : white).chooseMove(board, toMove);
+            if (move == null) break;
+            int packed = PackedMove.fromMove(move);
+            if (ply < bookPlies) {
+                record.hashes[ply] = board.getHash();
+                record.moves[ply] = packed;
+                record.movers[ply] = toMove;
+            }
+            board.makeMove(packed, undo);
+            if (board.getWhiteLost() >= 6) {
+                record.winner = Color.BLACK;
+                break;
+            }
+            if (board.getBlackLost() >= 6) {
+                record.winner = Color.WHITE;
+                break;
+            }
+        }
+        return record;
+    }
+
+    /*
+     * Opening plies of one game and its result.
+     */
+    private static final class GameRecord {
+        final long[] hashes;
+        final int[] moves;
+        final Color[] movers;
+        Color winner;
+
+        GameRecord(int plies) {
+            hashes = new long[plies];
+            moves = new int[plies];
+            movers = new Color[plies];
+            Arrays.fill(moves, PackedMove.NONE);
+        }
+
+        void addTo(Map<Long, Map<Integer, Integer>> positions) {
+            for (int ply = 0; ply < moves.length && moves[ply] != PackedMove.NONE; ply++) {
+                int score = winner == null ? 1 : winner == movers[ply] ? 2 : 0;
+                positions.computeIfAbsent(hashes[ply], h -> new HashMap<>())
+                        .merge(moves[ply], score, Integer::sum);
+            }
+        }
+    }
+}
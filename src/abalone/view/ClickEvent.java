@@ -0,0 +1,39 @@
+package abalone.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a click on the board, from the press to the end
+ * of the first repaint that shows its outcome: the latency the player
+ * feels.
+ */
+@Name("abalone.BoardClick")
+@Label("Board Click")
+@Category({"Abalone", "GUI"})
+@Description("Click on the board, from handleHashClick to the completed repaint")
+final class ClickEvent extends Event {
+    @Label("Cell")
+    String cell;
+
+    @Label("Handling Time")
+    @Description("Time spent in GuiController.handleHashClick")
+    @Timespan(Timespan.NANOSECONDS)
+    long handlingTime;
+
+    @Label("Paint Time")
+    @Description("Time spent in the paintComponent that completed the click")
+    @Timespan(Timespan.NANOSECONDS)
+    long paintTime;
+
+    @Label("Selected")
+    @Description("Marbles selected after the click")
+    int selected;
+
+    @Label("Move Played")
+    boolean movePlayed;
+}
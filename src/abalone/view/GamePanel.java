@@ -2,6 +2,7 @@ package abalone.view;
 
 import abalone.controller.GuiController;
 import abalone.model.Board;
+import abalone.model.BoardGeometry;
 import abalone.model.Color;
 import abalone.model.HexCoordinate;
 
@@ -9,84 +10,241 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
+/**
+ * Board view. Everything that does not change between frames is rendered
+ * once into images: the board with its holes (rebuilt when the panel is
+ * resized) and one sprite per marble color, selection ring and move hint.
+ * A repaint then only copies images at precomputed cell centers, without
+ * allocating.
+ *
+ * Only what changed is repainted: the controller reports the cells that
+ * changed and the panel repaints their squares (and the message band when
+ * the message changes), drawing only the cells inside the clip.
+ */
 public class GamePanel extends JPanel {
+    private static final java.awt.Color BACKGROUND = new java.awt.Color(34, 139, 34); // Forest Green
+    private static final java.awt.Color HOLE = new java.awt.Color(0, 100, 0); // Darker green holes
+    private static final java.awt.Color GLOSS = new java.awt.Color(255, 255, 255, 100);
+    private static final java.awt.Color HINT_FILL = new java.awt.Color(255, 215, 0, 160); // translucent gold
+    private static final java.awt.Color HINT_OUTLINE = new java.awt.Color(255, 255, 0);
+    private static final Stroke SELECTION_STROKE = new BasicStroke(3);
+    private static final Stroke HINT_STROKE = new BasicStroke(2);
+    private static final Font MESSAGE_FONT = new Font("Arial", Font.BOLD, 20);
+    // Top strip holding the message (baseline at 30).
+    private static final int MESSAGE_HEIGHT = 40;
+
     private final Board board;
     private final GuiController controller;
     private final HexLayout layout;
+    // Pixel center of each cell index.
+    private final int[] cellX = new int[BoardGeometry.CELL_COUNT];
+    private final int[] cellY = new int[BoardGeometry.CELL_COUNT];
+
+    // Pre-rendered images, each drawn centered on a cell.
+    private BufferedImage background;
+    private BufferedImage blackMarble;
+    private BufferedImage whiteMarble;
+    private BufferedImage selectionRing;
+    private BufferedImage hint;
+    // Clicks waiting for the repaint that shows them (Flight Recorder). Swing
+    // may merge the repaints of several clicks into one paint.
+    private final List<ClickEvent> pendingClicks = new ArrayList<>();
+    // Set when the controller asked for a repaint during the current click.
+    private boolean repaintRequested;
+    private final Rectangle clip = new Rectangle();
 
     public GamePanel(Board board, GuiController controller) {
         this.board = board;
         this.controller = controller;
         this.layout = new HexLayout(30, 400, 300); // Size 30, Centered roughly 800x600?
 
-        setBackground(new java.awt.Color(34, 139, 34)); // Forest Green
+        setBackground(BACKGROUND);
+        for (int cell = 0; cell < BoardGeometry.CELL_COUNT; cell++) {
+            Point p = layout.hexToPixel(BoardGeometry.coordinate(cell));
+            cellX[cell] = p.x;
+            cellY[cell] = p.y;
+        }
+        createSprites();
 
-        controller.setOnUpdate(this::repaint);
+        controller.setOnUpdate(this::repaintMessage);
+        controller.setOnCellsChanged(this::repaintCells);
 
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 HexCoordinate h = layout.pixelToHex(e.getX(), e.getY());
+                ClickEvent event = new ClickEvent();
+                event.begin();
+                long start = System.nanoTime();
+                long hash = board.getHash();
+                repaintRequested = false;
                 controller.handleHashClick(h);
-                repaint();
+                if (event.isEnabled()) {
+                    event.cell = h.toString();
+                    event.handlingTime = System.nanoTime() - start;
+                    event.movePlayed = board.getHash() != hash;
+                    if (repaintRequested) {
+                        pendingClicks.add(event);
+                    } else {
+                        event.commit(); // nothing to show
+                    }
+                }
             }
         });
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        long paintStart = System.nanoTime();
+        if (background == null || background.getWidth() != getWidth() || background.getHeight() != getHeight()) {
+            background = createBackground(Math.max(getWidth(), 1), Math.max(getHeight(), 1));
+        }
+        g.drawImage(background, 0, 0, null);
 
-        // Draw Board Grid (All valid spots)
-        // Range q: -4 to 4, r: -4 to 4
-        g2.setColor(new java.awt.Color(0, 100, 0)); // Darker green holes
-        for (int q = -4; q <= 4; q++) {
-            for (int r = -4; r <= 4; r++) {
-                HexCoordinate h = new HexCoordinate(q, r);
-                if (board.isValid(h)) {
-                    Point p = layout.hexToPixel(h);
-                    drawHex(g2, p.x, p.y, layout.getSize(), false);
-                }
+        clip.setBounds(0, 0, getWidth(), getHeight()); // kept if there is no clip
+        g.getClipBounds(clip);
+        long visible = visibleCells();
+
+        // Pieces
+        drawCells(g, board.getBits(Color.BLACK) & visible, blackMarble);
+        drawCells(g, board.getBits(Color.WHITE) & visible, whiteMarble);
+
+        // Selection and possible destinations (move hints)
+        drawCells(g, controller.getShownSelection() & visible, selectionRing);
+        drawCells(g, controller.getShownHints() & visible, hint);
+
+        // Message
+        if (clip.y < MESSAGE_HEIGHT) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(java.awt.Color.WHITE);
+            g2.setFont(MESSAGE_FONT);
+            g2.drawString(controller.getMessage(), 20, 30);
+        }
+
+        if (!pendingClicks.isEmpty()) {
+            long paintTime = System.nanoTime() - paintStart;
+            int selected = Long.bitCount(controller.getShownSelection());
+            for (int i = 0; i < pendingClicks.size(); i++) {
+                ClickEvent click = pendingClicks.get(i);
+                click.paintTime = paintTime;
+                click.selected = selected;
+                click.commit();
             }
+            pendingClicks.clear();
         }
+    }
 
-        // Draw Pieces
-        board.getPieces().forEach((coord, piece) -> {
-            Point p = layout.hexToPixel(coord);
-            drawMarble(g2, p.x, p.y, layout.getSize() - 5, piece.getColor());
-        });
+    /*
+     * Repaints the squares of the given cells (bitset of cell indices).
+     */
+    private void repaintCells(long cells) {
+        repaintRequested = true;
+        int half = layout.getSize();
+        while (cells != 0) {
+            int cell = Long.numberOfTrailingZeros(cells);
+            repaint(cellX[cell] - half, cellY[cell] - half, 2 * half, 2 * half);
+            cells &= cells - 1;
+        }
+    }
 
-        // Draw Selection
-        List<HexCoordinate> selected = controller.getSelectedMarbles();
-        g2.setColor(java.awt.Color.YELLOW);
-        g2.setStroke(new BasicStroke(3));
-        for (HexCoordinate h : selected) {
-            Point p = layout.hexToPixel(h);
-            g2.drawOval(p.x - (layout.getSize() - 5), p.y - (layout.getSize() - 5), (layout.getSize() - 5) * 2,
-                    (layout.getSize() - 5) * 2);
+    private void repaintMessage() {
+        repaintRequested = true;
+        repaint(0, 0, getWidth(), MESSAGE_HEIGHT);
+    }
+
+    /*
+     * Cells whose square intersects the current clip.
+     */
+    private long visibleCells() {
+        int half = layout.getSize();
+        long cells = 0L;
+        for (int cell = 0; cell < BoardGeometry.CELL_COUNT; cell++) {
+            if (cellX[cell] + half > clip.x && cellX[cell] - half < clip.x + clip.width
+                    && cellY[cell] + half > clip.y && cellY[cell] - half < clip.y + clip.height) {
+                cells |= 1L << cell;
+            }
         }
+        return cells;
+    }
 
-        // Draw possible destinations (move hints)
-        Set<HexCoordinate> destinations = controller.getPossibleDestinations();
-        for (HexCoordinate h : destinations) {
-            Point p = layout.hexToPixel(h);
-            int r = layout.getSize() / 2;
-            g2.setColor(new java.awt.Color(255, 215, 0, 160)); // translucent gold
-            g2.fillOval(p.x - r, p.y - r, r * 2, r * 2);
-            g2.setColor(new java.awt.Color(255, 255, 0));
-            g2.setStroke(new BasicStroke(2));
-            g2.drawOval(p.x - r, p.y - r, r * 2, r * 2);
+    /*
+     * Draws a sprite centered on every cell of a bitset.
+     */
+    private void drawCells(Graphics g, long cells, BufferedImage sprite) {
+        int half = sprite.getWidth() / 2;
+        while (cells != 0) {
+            int cell = Long.numberOfTrailingZeros(cells);
+            g.drawImage(sprite, cellX[cell] - half, cellY[cell] - half, null);
+            cells &= cells - 1;
         }
+    }
+
+    /*
+     * The empty board: background color and the 61 holes.
+     */
+    private BufferedImage createBackground(int width, int height) {
+        BufferedImage image = compatibleImage(width, height, Transparency.OPAQUE);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, width, height);
+        g2.setColor(HOLE);
+        for (int cell = 0; cell < BoardGeometry.CELL_COUNT; cell++) {
+            drawHex(g2, cellX[cell], cellY[cell], layout.getSize(), false);
+        }
+        g2.dispose();
+        return image;
+    }
 
-        // Draw Message
-        g2.setColor(java.awt.Color.WHITE);
-        g2.setFont(new Font("Arial", Font.BOLD, 20));
-        g2.drawString(controller.getMessage(), 20, 30);
+    private void createSprites() {
+        int radius = layout.getSize() - 5;
+        blackMarble = createSprite(radius, g2 -> drawMarble(g2, 0, 0, radius, Color.BLACK));
+        whiteMarble = createSprite(radius, g2 -> drawMarble(g2, 0, 0, radius, Color.WHITE));
+        selectionRing = createSprite(radius, g2 -> {
+            g2.setColor(java.awt.Color.YELLOW);
+            g2.setStroke(SELECTION_STROKE);
+            g2.drawOval(-radius, -radius, radius * 2, radius * 2);
+        });
+        int r = layout.getSize() / 2;
+        hint = createSprite(r, g2 -> {
+            g2.setColor(HINT_FILL);
+            g2.fillOval(-r, -r, r * 2, r * 2);
+            g2.setColor(HINT_OUTLINE);
+            g2.setStroke(HINT_STROKE);
+            g2.drawOval(-r, -r, r * 2, r * 2);
+        });
+    }
+
+    /*
+     * Translucent square image with the origin at its center, large enough
+     * for a shape of the given radius and its outline.
+     */
+    private BufferedImage createSprite(int radius, java.util.function.Consumer<Graphics2D> painter) {
+        int half = radius + 3;
+        BufferedImage image = compatibleImage(2 * half, 2 * half, Transparency.TRANSLUCENT);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.translate(half, half);
+        painter.accept(g2);
+        g2.dispose();
+        return image;
+    }
+
+    /*
+     * Image in the screen's native format when known, so copies are plain blits.
+     */
+    private BufferedImage compatibleImage(int width, int height, int transparency) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
     }
 
     private void drawHex(Graphics2D g2, int x, int y, int size, boolean fill) {
@@ -107,7 +265,7 @@ public class GamePanel extends JPanel {
         g2.fillOval(x - radius, y - radius, radius * 2, radius * 2);
 
         // Gloss/Shine for 3D effect
-        g2.setColor(new java.awt.Color(255, 255, 255, 100));
+        g2.setColor(GLOSS);
         g2.fillOval(x - radius / 2, y - radius / 2, radius / 2, radius / 2);
     }
 }
@@ -14,6 +14,7 @@ import java.io.IOException;
 public class GameWindow extends JFrame {
     private final CardLayout cardLayout;
     private final JPanel mainPanel;
+    private GuiController currentController;
 
     public GameWindow() {
         super("Abalone");
@@ -64,6 +65,7 @@ public class GameWindow extends JFrame {
     }
 
     public void showTitleScreen() {
+        endCurrentGame();
         cardLayout.show(mainPanel, "TITLE");
     }
 
@@ -100,7 +102,19 @@ public class GameWindow extends JFrame {
         finishLaunch(board, controller, gamePanel);
     }
 
+    /*
+     * Stops the AI of the game being left, so it does not keep a core busy.
+     */
+    private void endCurrentGame() {
+        if (currentController != null) {
+            currentController.dispose();
+            currentController = null;
+        }
+    }
+
     private void finishLaunch(Board board, GuiController controller, GamePanel gamePanel) {
+        endCurrentGame();
+        currentController = controller;
         controller.setOnGameEnd(() -> {
             Timer timer = new Timer(3000, e -> showTitleScreen());
             timer.setRepeats(false);